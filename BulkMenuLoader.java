@@ -0,0 +1,154 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.*;
+
+/**
+ * Loads a menu text file without echoing each line.  The calling thread reads batches of lines
+ * and hands them to a fixed pool of workers that parse them with Restaurant.parseLine.  At most
+ * MAX_BATCHES_PER_WORKER batches per worker are in flight; finished batches are collected in file
+ * order so that the first of two duplicate items still wins.
+ */
+public class BulkMenuLoader
+{
+    public static final int BATCH_SIZE = 1024;
+    public static final int MAX_BATCHES_PER_WORKER = 4;
+    
+    private String fileName;
+    private int numWorkers;
+    private ReviewerDictionary reviewers;
+    private MenuLoadReport report;
+    
+    public BulkMenuLoader(String fileName, ReviewerDictionary reviewers)
+    {
+        this(fileName, Runtime.getRuntime().availableProcessors(), reviewers);
+    }
+    
+    public BulkMenuLoader(String fileName, int numWorkers, ReviewerDictionary reviewers)
+    {
+        this.fileName = fileName;
+        this.numWorkers = Math.max(1, numWorkers);
+        this.reviewers = reviewers;
+        report = new MenuLoadReport(fileName);
+    }
+    
+    public MenuLoadReport getReport()
+    {
+        return report;
+    }
+    
+    /**
+     * Parses every line of the file, returning the items in file order.  Lines that cannot be
+     * parsed are counted and recorded in the report instead of stopping the load.
+     */
+    public ArrayList<MenuItem> load() throws RestaurantException
+    {
+        ArrayList<MenuItem> items = new ArrayList<MenuItem>();
+        ExecutorService workers = Executors.newFixedThreadPool(numWorkers);
+        ArrayDeque<Future<Batch>> inFlight = new ArrayDeque<Future<Batch>>();
+        FileIO br = null;
+        try
+        {
+            br = new FileIO(fileName, FileIO.FOR_READING);
+            long lineNumber = 1;
+            String line = br.readLine();
+            while (line != null)
+            {
+                Batch batch = new Batch(lineNumber, reviewers);
+                while (line != null && batch.size() < BATCH_SIZE)
+                {
+                    batch.add(line);
+                    line = br.readLine();
+                }
+                lineNumber += batch.size();
+                report.addLines(batch.size());
+                
+                if (inFlight.size() >= numWorkers * MAX_BATCHES_PER_WORKER)
+                {
+                    collect(inFlight.poll().get(), items);
+                }
+                inFlight.add(workers.submit(batch));
+            }
+            while (!inFlight.isEmpty())
+            {
+                collect(inFlight.poll().get(), items);
+            }
+        }
+        catch (FileIOException | ExecutionException e)
+        {
+            throw new RestaurantException(e.getMessage());
+        }
+        catch (InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            throw new RestaurantException("Menu load interrupted");
+        }
+        finally
+        {
+            workers.shutdownNow();
+            if (br != null)
+            {
+                br.close();
+            }
+        }
+        return items;
+    }
+    
+    private void collect(Batch batch, ArrayList<MenuItem> items)
+    {
+        for (int i = 0; i < batch.size(); i++)
+        {
+            if (batch.items[i] != null)
+            {
+                items.add(batch.items[i]);
+            }
+            else
+            {
+                report.addError("line " + (batch.firstLine + i) + ": " + batch.errors[i]);
+            }
+        }
+    }
+    
+    private static class Batch implements Callable<Batch>
+    {
+        private long firstLine;
+        private ReviewerDictionary reviewers;
+        private ArrayList<String> lines;
+        private MenuItem[] items;
+        private String[] errors;
+        
+        public Batch(long firstLine, ReviewerDictionary reviewers)
+        {
+            this.firstLine = firstLine;
+            this.reviewers = reviewers;
+            lines = new ArrayList<String>(BATCH_SIZE);
+        }
+        
+        public void add(String line)
+        {
+            lines.add(line);
+        }
+        
+        public int size()
+        {
+            return lines.size();
+        }
+        
+        public Batch call()
+        {
+            items = new MenuItem[lines.size()];
+            errors = new String[lines.size()];
+            for (int i = 0; i < lines.size(); i++)
+            {
+                try
+                {
+                    items[i] = Restaurant.parseLine(lines.get(i), reviewers);
+                }
+                catch (Exception e)
+                {
+                    errors[i] = e.toString();
+                }
+            }
+            return this;
+        }
+    }
+}
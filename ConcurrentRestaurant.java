@@ -0,0 +1,193 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import utilities.Money;
+
+/**
+ * Order and rating intake for many point-of-sale threads at once.  Items live in a
+ * ConcurrentHashMap, order totals are striped LongAdder counters of cents (per item and for
+ * the whole restaurant) and ratings are appended to lock-free queues, so order, addRating and the
+ * aggregate reads never block each other.  getMenuItems copies the current state back into plain
+ * MenuItems, for example to write a snapshot or load into a Restaurant.
+ */
+public class ConcurrentRestaurant
+{
+    private String name;
+    private ConcurrentHashMap<String, Entry> menu;
+    private LongAdder totalSales = new LongAdder(); // in cents
+    private LongAdder totalWholesaleCost = new LongAdder(); // in cents
+    private LongAdder totalRatingSum = new LongAdder();
+    private LongAdder totalNumRatings = new LongAdder();
+    
+    public ConcurrentRestaurant(String name, Collection<MenuItem> items)
+    {
+        this.name = name;
+        menu = new ConcurrentHashMap<String, Entry>(items.size() * 4 / 3 + 1);
+        for (MenuItem item : items)
+        {
+            Entry entry = new Entry(item);
+            if (menu.putIfAbsent(item.getName().toLowerCase(), entry) == null)
+            {
+                totalSales.add(item.getTotalSalesCents());
+                totalWholesaleCost.add(item.getTotalWholesaleCostCents());
+                totalRatingSum.add(item.getRatingSum());
+                totalNumRatings.add(item.getNumRatings());
+            }
+        }
+    }
+    
+    public String getName()
+    {
+        return name;
+    }
+    
+    public boolean order(String itemName, int numOrders)
+    {
+        boolean result = false;
+        Entry which = menu.get(itemName.toLowerCase());
+        if (which != null && which.active && numOrders > 0)
+        {
+            long sales = which.price * numOrders;
+            long cost = which.wholesaleCost * numOrders;
+            which.numOrders.add(numOrders);
+            which.totalSales.add(sales);
+            which.totalWholesaleCost.add(cost);
+            totalSales.add(sales);
+            totalWholesaleCost.add(cost);
+            result = true;
+        }
+        return result;
+    }
+    
+    public boolean addRating(String itemName, String reviewerName, String date, int rating) throws RestaurantException
+    {
+        boolean result = false;
+        Entry which = menu.get(itemName.toLowerCase());
+        if (which != null && which.active)
+        {
+            try
+            {
+                which.ratings.add(new Rating(reviewerName, date, rating));
+            }
+            catch (RatingException re)
+            {
+                throw new RestaurantException(re.getMessage());
+            }
+            which.ratingSum.add(rating);
+            which.numRatings.increment();
+            totalRatingSum.add(rating);
+            totalNumRatings.increment();
+            result = true;
+        }
+        return result;
+    }
+    
+    public boolean activate(String itemName)
+    {
+        Entry which = menu.get(itemName.toLowerCase());
+        if (which != null)
+        {
+            which.active = true;
+        }
+        return which != null;
+    }
+    
+    public boolean discontinue(String itemName)
+    {
+        Entry which = menu.get(itemName.toLowerCase());
+        if (which != null)
+        {
+            which.active = false;
+        }
+        return which != null;
+    }
+    
+    public int getNumOrders(String itemName)
+    {
+        Entry which = menu.get(itemName.toLowerCase());
+        return which == null ? 0 : which.numOrders.intValue();
+    }
+    
+    public double getAverageRating(String itemName)
+    {
+        double result = 0;
+        Entry which = menu.get(itemName.toLowerCase());
+        if (which != null)
+        {
+            long count = which.numRatings.sum();
+            if (count > 0)
+            {
+                result = (double) which.ratingSum.sum() / count;
+            }
+        }
+        return result;
+    }
+    
+    public double getTotalProfit()
+    {
+        return Money.toDollars(getTotalProfitCents());
+    }
+    
+    public long getTotalProfitCents()
+    {
+        return totalSales.sum() - totalWholesaleCost.sum();
+    }
+    
+    public double getAverageItemRating()
+    {
+        double result = 0;
+        long count = totalNumRatings.sum();
+        if (count > 0)
+        {
+            result = (double) totalRatingSum.sum() / count;
+        }
+        return result;
+    }
+    
+    /**
+     * Copies the current state of every item into new MenuItems.  Changes that race with the copy
+     * may or may not be included.
+     */
+    public ArrayList<MenuItem> getMenuItems() throws MenuItemException
+    {
+        ArrayList<MenuItem> result = new ArrayList<MenuItem>(menu.size());
+        for (Entry entry : menu.values())
+        {
+            MenuItem item = entry.item;
+            result.add(new MenuItem(item.getName(), item.getCategory(), item.getServingSize(), item.getCalories(),
+                                    entry.price, entry.wholesaleCost, entry.numOrders.intValue(), entry.totalWholesaleCost.sum(),
+                                    entry.totalSales.sum(), entry.active, item.isRecommended(), new ArrayList<Rating>(entry.ratings)));
+        }
+        return result;
+    }
+    
+    private static class Entry
+    {
+        private MenuItem item;
+        private volatile boolean active;
+        private long price; // in cents
+        private long wholesaleCost; // in cents
+        private LongAdder numOrders = new LongAdder();
+        private LongAdder totalSales = new LongAdder();
+        private LongAdder totalWholesaleCost = new LongAdder();
+        private ConcurrentLinkedQueue<Rating> ratings;
+        private LongAdder ratingSum = new LongAdder();
+        private LongAdder numRatings = new LongAdder();
+        
+        public Entry(MenuItem item)
+        {
+            this.item = item;
+            active = item.isActive();
+            price = item.getPriceCents();
+            wholesaleCost = item.getWholesaleCostCents();
+            numOrders.add(item.getNumOrders());
+            totalSales.add(item.getTotalSalesCents());
+            totalWholesaleCost.add(item.getTotalWholesaleCostCents());
+            ratings = new ConcurrentLinkedQueue<Rating>(item.getRatings());
+            ratingSum.add(item.getRatingSum());
+            numRatings.add(item.getNumRatings());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stress benchmark for order intake: runs 1, 2, 4 ... maxThreads threads against a
+ * ConcurrentRestaurant and against a Restaurant guarded by one lock, and prints the throughput
+ * of each.  Every thread mixes 90% orders, 5% ratings and 5% aggregate reads.
+ *
+ * Usage: java ConcurrentRestaurantStress [numItems] [maxThreads] [secondsPerRun]
+ */
+public class ConcurrentRestaurantStress
+{
+    public static void main(String[] args) throws Exception
+    {
+        int numItems = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 2;
+        
+        ArrayList<MenuItem> items = new ArrayList<MenuItem>();
+        String[] names = new String[numItems];
+        for (int i = 0; i < numItems; i++)
+        {
+            names[i] = "Item " + i;
+            items.add(new MenuItem(names[i], MenuCategory.MAIN, 8, 400, 10.99, 2.00, 0, 0, 0, true, false, new ArrayList<Rating>()));
+        }
+        
+        System.out.println("threads  concurrent ops/s  locked Restaurant ops/s");
+        for (int threads = 1; threads <= maxThreads; threads *= 2)
+        {
+            final ConcurrentRestaurant concurrent = new ConcurrentRestaurant("Stress", items);
+            final Restaurant locked = new Restaurant("Stress");
+            for (MenuItem item : items)
+            {
+                locked.addToMenu(item.getName(), item.getCategory(), item.getServingSize(), item.getCalories(), item.getPrice(), item.getWholesaleCost());
+            }
+            locked.activate();
+            
+            double concurrentRate = run(threads, seconds, names, new Intake()
+            {
+                public void order(String name) { concurrent.order(name, 1); }
+                public void rate(String name) throws RestaurantException { concurrent.addRating(name, "stress", "10/04/2015", 4); }
+                public double read() { return concurrent.getTotalProfit() + concurrent.getAverageItemRating(); }
+            });
+            double lockedRate = run(threads, seconds, names, new Intake()
+            {
+                public void order(String name) throws RestaurantException { synchronized (locked) { locked.order(name, 1); } }
+                public void rate(String name) throws RestaurantException { synchronized (locked) { locked.addRating(name, "stress", "10/04/2015", 4); } }
+                public double read() { synchronized (locked) { return locked.getTotalProfit() + locked.getAverageItemRating(); } }
+            });
+            System.out.printf("%7d  %16.0f  %23.0f%n", threads, concurrentRate, lockedRate);
+        }
+    }
+    
+    private interface Intake
+    {
+        void order(String name) throws RestaurantException;
+        void rate(String name) throws RestaurantException;
+        double read();
+    }
+    
+    private static double run(int numThreads, double seconds, final String[] names, final Intake intake) throws InterruptedException
+    {
+        final LongAdder ops = new LongAdder();
+        final CountDownLatch start = new CountDownLatch(1);
+        final long end = System.nanoTime() + (long) (seconds * 1e9);
+        Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++)
+        {
+            final int seed = t + 1;
+            threads[t] = new Thread()
+            {
+                public void run()
+                {
+                    int x = seed * 0x9E3779B9;
+                    long count = 0;
+                    double sink = 0;
+                    try
+                    {
+                        start.await();
+                        while ((count & 1023) != 0 || System.nanoTime() < end)
+                        {
+                            x ^= x << 13;
+                            x ^= x >>> 17;
+                            x ^= x << 5;
+                            String name = names[(x >>> 1) % names.length];
+                            int kind = (x >>> 8) % 100;
+                            if (kind < 90)
+                            {
+                                intake.order(name);
+                            }
+                            else if (kind < 95)
+                            {
+                                intake.rate(name);
+                            }
+                            else
+                            {
+                                sink += intake.read();
+                            }
+                            count++;
+                        }
+                    }
+                    catch (InterruptedException | RestaurantException e)
+                    {
+                        throw new RuntimeException(e);
+                    }
+                    ops.add(count + (sink == 42 ? 1 : 0));
+                }
+            };
+            threads[t].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        return ops.sum() / ((System.nanoTime() - begin) / 1e9);
+    }
+}
@@ -0,0 +1,358 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import utilities.DateCodec;
+import utilities.Money;
+
+/**
+ * Reads a menu text file (the format written by MenuItem.getState) by memory mapping it and
+ * tokenizing the bytes in place.  Numbers, booleans and categories are parsed straight from the
+ * mapped bytes; only the item name and the reviewer and date of each rating become Strings.
+ * Large files are mapped one window at a time, so a single line must fit in WINDOW_SIZE bytes.
+ */
+public class MappedMenuReader
+{
+    public static final int WINDOW_SIZE = 64 * 1024 * 1024;
+    
+    private static final MenuCategory[] CATEGORIES = MenuCategory.values();
+    private static final Charset CHARSET = Charset.defaultCharset();
+    
+    private String fileName;
+    private ReviewerDictionary reviewers;
+    private MenuLoadReport report;
+    private MappedByteBuffer buf;
+    private byte[] scratch = new byte[256];
+    private ByteField field = new ByteField();
+    private int pos;
+    private int lineEnd;
+    
+    public MappedMenuReader(String fileName, ReviewerDictionary reviewers)
+    {
+        this.fileName = fileName;
+        this.reviewers = reviewers;
+        report = new MenuLoadReport(fileName);
+    }
+    
+    public MenuLoadReport getReport()
+    {
+        return report;
+    }
+    
+    /**
+     * Parses every line of the file, returning the items in file order.  Lines that cannot be
+     * parsed are recorded in the report instead of stopping the load.
+     */
+    public ArrayList<MenuItem> read() throws RestaurantException
+    {
+        ArrayList<MenuItem> items = new ArrayList<MenuItem>();
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r");
+             FileChannel channel = file.getChannel())
+        {
+            long size = channel.size();
+            long windowStart = 0;
+            long lineNumber = 1;
+            while (windowStart < size)
+            {
+                int length = (int) Math.min(WINDOW_SIZE, size - windowStart);
+                boolean lastWindow = windowStart + length == size;
+                buf = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+                int lineStart = 0;
+                while (lineStart < length)
+                {
+                    int newline = indexOf((byte) '\n', lineStart, length);
+                    if (newline < 0 && !lastWindow)
+                    {
+                        break;
+                    }
+                    int next = newline < 0 ? length : newline + 1;
+                    lineEnd = newline < 0 ? length : newline;
+                    if (lineEnd > lineStart && buf.get(lineEnd - 1) == '\r')
+                    {
+                        lineEnd--;
+                    }
+                    if (lineEnd > lineStart)
+                    {
+                        pos = lineStart;
+                        try
+                        {
+                            items.add(parseItem());
+                        }
+                        catch (Exception e)
+                        {
+                            report.addError("line " + lineNumber + ": " + e.toString());
+                        }
+                    }
+                    report.addLines(1);
+                    lineNumber++;
+                    lineStart = next;
+                }
+                if (lineStart == 0 && !lastWindow)
+                {
+                    throw new RestaurantException("Line " + lineNumber + " of " + fileName + " is longer than " + WINDOW_SIZE + " bytes");
+                }
+                windowStart += lineStart;
+            }
+        }
+        catch (IOException ioe)
+        {
+            throw new RestaurantException(ioe.getMessage());
+        }
+        finally
+        {
+            buf = null;
+        }
+        return items;
+    }
+    
+    private MenuItem parseItem() throws MenuItemException, RatingException
+    {
+        String name = nextString(',');
+        MenuCategory cat = nextCategory();
+        int servingSize = nextInt(',');
+        int numCalories = nextInt(',');
+        long price = nextCents();
+        long wholesale = nextCents();
+        int numOrders = nextInt(',');
+        long totalCost = nextCents();
+        long totalSales = nextCents();
+        boolean active = nextBoolean();
+        boolean recommended = nextBoolean();
+        int numRatings = nextInt(',');
+        RatingStore ratings = new RatingStore(reviewers, Math.max(0, numRatings));
+        for (int i = 0; i < numRatings; i++)
+        {
+            String reviewer = nextReviewer();
+            int day = nextEpochDay();
+            ratings.add(reviewer, day, nextInt(','));
+        }
+        return new MenuItem(name, cat, servingSize, numCalories, price, wholesale, numOrders, totalCost, totalSales, active, recommended, ratings);
+    }
+    
+    private int indexOf(byte b, int from, int to)
+    {
+        for (int i = from; i < to; i++)
+        {
+            if (buf.get(i) == b)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    // end of the field starting at pos; the next field starts one past it
+    private int fieldEnd(char delimiter)
+    {
+        if (pos > lineEnd)
+        {
+            throw new ArrayIndexOutOfBoundsException("Missing field");
+        }
+        int end = indexOf((byte) delimiter, pos, lineEnd);
+        return end < 0 ? lineEnd : end;
+    }
+    
+    private String nextString(char delimiter)
+    {
+        return nextString(fieldEnd(delimiter));
+    }
+    
+    /**
+     * A rating's reviewer, which ends at the ':' before its date; reaching the ',' that ends the
+     * rating or the end of the line first means the rating is malformed.
+     */
+    private String nextReviewer() throws RatingException
+    {
+        int end = pos;
+        while (end < lineEnd && buf.get(end) != ':' && buf.get(end) != ',')
+        {
+            end++;
+        }
+        if (end >= lineEnd || buf.get(end) != ':')
+        {
+            throw new RatingException("Invalid review information");
+        }
+        return nextString(end);
+    }
+    
+    // the String from pos to end, leaving pos at the start of the next field
+    private String nextString(int end)
+    {
+        int length = end - pos;
+        if (scratch.length < length)
+        {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        for (int i = 0; i < length; i++)
+        {
+            scratch[i] = buf.get(pos + i);
+        }
+        pos = end + 1;
+        return new String(scratch, 0, length, CHARSET);
+    }
+    
+    /**
+     * Reads a "mm/dd/yyyy" date straight from the bytes; DateCodec.INVALID if it is not a real date.
+     */
+    private int nextEpochDay()
+    {
+        int end = fieldEnd(':');
+        int result = DateCodec.INVALID;
+        if (end - pos == DateCodec.DATE_LENGTH && buf.get(pos + 2) == '/' && buf.get(pos + 5) == '/')
+        {
+            int month = digits(pos, 2);
+            int day = digits(pos + 3, 2);
+            int year = digits(pos + 6, 4);
+            if (month >= 0 && day >= 0 && year >= 0 && DateCodec.isValid(year, month, day))
+            {
+                result = DateCodec.toEpochDay(year, month, day);
+            }
+        }
+        pos = end + 1;
+        return result;
+    }
+    
+    // the value of a run of decimal digits, or -1 if any byte is not a digit
+    private int digits(int start, int length)
+    {
+        int result = 0;
+        for (int i = start; i < start + length; i++)
+        {
+            int digit = buf.get(i) - '0';
+            if (digit < 0 || digit > 9)
+            {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+    
+    private MenuCategory nextCategory()
+    {
+        int end = fieldEnd(',');
+        for (MenuCategory cat : CATEGORIES)
+        {
+            if (matches(cat.name(), pos, end))
+            {
+                pos = end + 1;
+                return cat;
+            }
+        }
+        throw new IllegalArgumentException("No enum constant MenuCategory." + nextString(','));
+    }
+    
+    private boolean matches(String text, int start, int end)
+    {
+        boolean result = end - start == text.length();
+        for (int i = 0; result && i < text.length(); i++)
+        {
+            result = buf.get(start + i) == text.charAt(i);
+        }
+        return result;
+    }
+    
+    // same result as Boolean.parseBoolean: true only for "true" in any case
+    private boolean nextBoolean()
+    {
+        int end = fieldEnd(',');
+        boolean result = end - pos == 4;
+        for (int i = 0; result && i < 4; i++)
+        {
+            result = Character.toLowerCase((char) buf.get(pos + i)) == "true".charAt(i);
+        }
+        pos = end + 1;
+        return result;
+    }
+    
+    // same accepted input and overflow behavior as Integer.parseInt
+    private int nextInt(char delimiter)
+    {
+        int end = fieldEnd(delimiter);
+        int i = pos;
+        boolean negative = false;
+        if (i < end && (buf.get(i) == '-' || buf.get(i) == '+'))
+        {
+            negative = buf.get(i) == '-';
+            i++;
+        }
+        if (i == end)
+        {
+            throw new NumberFormatException("For input string: \"" + nextString(delimiter) + "\"");
+        }
+        long value = 0;
+        for (; i < end; i++)
+        {
+            int digit = buf.get(i) - '0';
+            if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE + 1L)
+            {
+                throw new NumberFormatException("For input string: \"" + nextString(delimiter) + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+        {
+            throw new NumberFormatException("For input string: \"" + nextString(delimiter) + "\"");
+        }
+        pos = end + 1;
+        return (int) value;
+    }
+    
+    // Money.parse reads the field in place through field, so both readers share one parser
+    private long nextCents()
+    {
+        int end = fieldEnd(',');
+        field.setRange(pos, end);
+        long result = Money.parse(field);
+        pos = end + 1;
+        return result;
+    }
+    
+    /**
+     * The bytes of one field seen as characters, without copying them.  The text format is
+     * ASCII wherever a number is expected, so each byte is one char.
+     */
+    private class ByteField implements CharSequence
+    {
+        private int start;
+        private int end;
+        
+        void setRange(int start, int end)
+        {
+            this.start = start;
+            this.end = end;
+        }
+        
+        public int length()
+        {
+            return end - start;
+        }
+        
+        public char charAt(int index)
+        {
+            if (index < 0 || index >= end - start)
+            {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + (end - start));
+            }
+            return (char) (buf.get(start + index) & 0xFF);
+        }
+        
+        public CharSequence subSequence(int from, int to)
+        {
+            return toString().subSequence(from, to);
+        }
+        
+        public String toString()
+        {
+            byte[] bytes = new byte[end - start];
+            for (int i = 0; i < bytes.length; i++)
+            {
+                bytes[i] = buf.get(start + i);
+            }
+            return new String(bytes, CHARSET);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+import java.io.*;
+import java.util.*;
+import utilities.DateCodec;
+
+/**
+ * Writes synthetic menus for load tests and benchmarks, in the text file format (one
+ * MenuItem.getState line per item) or the object file format Restaurant reads back.  Every
+ * value comes from one seeded Random, so a given seed and configuration always produce the
+ * same menu, in either format.  Text files are written one item at a time and never hold
+ * more than one item in memory, so they can be many GB.  An object file is a single
+ * serialized HashMap, so it is built in memory first.  Loading it needs the whole map in
+ * memory too, so both sides have the same size limit.
+ *
+ * Usage: java MenuGenerator outFile [-format text|object] [-items n] [-seed n]
+ *                           [-mix MAIN=4,DESSERT=2,SIDE=3,DRINK=1]
+ *                           [-ratings uniform|longtail[:min-max]] [-reviewers n]
+ *                           [-dates mm/dd/yyyy-mm/dd/yyyy]
+ */
+public class MenuGenerator
+{
+    /** Every count from min to max is equally likely */
+    public static final int UNIFORM = 1;
+    /** Most items get close to min ratings and a few get close to max */
+    public static final int LONG_TAIL = 2;
+
+    // how often each score is given, from 1 to Rating.MAX_RATING
+    private static final int[] SCORE_WEIGHTS = {8, 9, 18, 30, 35};
+
+    private long seed;
+    private int numItems = 1000;
+    private int[] categoryWeights = {4, 2, 3, 1}; // by MenuCategory ordinal
+    private int ratingDistribution = UNIFORM;
+    private int minRatings = 0;
+    private int maxRatings = 10;
+    private int numReviewers = 1000;
+    private int firstDay = DateCodec.toEpochDay(2010, 1, 1);
+    private int lastDay = DateCodec.toEpochDay(2019, 12, 31);
+
+    public MenuGenerator(long seed)
+    {
+        this.seed = seed;
+    }
+
+    public MenuGenerator setItemCount(int numItems)
+    {
+        if (numItems < 0)
+        {
+            throw new IllegalArgumentException("Item count must not be negative");
+        }
+        this.numItems = numItems;
+        return this;
+    }
+
+    /**
+     * Relative weights of the categories, indexed by MenuCategory ordinal.
+     */
+    public MenuGenerator setCategoryMix(int[] weights)
+    {
+        int total = 0;
+        for (int weight : weights)
+        {
+            if (weight < 0)
+            {
+                throw new IllegalArgumentException("Category weights must not be negative");
+            }
+            total += weight;
+        }
+        if (weights.length != MenuCategory.values().length || total == 0)
+        {
+            throw new IllegalArgumentException("Need one weight per category and at least one above 0");
+        }
+        categoryWeights = weights.clone();
+        return this;
+    }
+
+    public MenuGenerator setRatingsPerItem(int distribution, int min, int max)
+    {
+        if ((distribution != UNIFORM && distribution != LONG_TAIL) || min < 0 || max < min)
+        {
+            throw new IllegalArgumentException("Invalid ratings per item");
+        }
+        ratingDistribution = distribution;
+        minRatings = min;
+        maxRatings = max;
+        return this;
+    }
+
+    public MenuGenerator setReviewerCount(int numReviewers)
+    {
+        if (numReviewers < 1)
+        {
+            throw new IllegalArgumentException("Need at least one reviewer");
+        }
+        this.numReviewers = numReviewers;
+        return this;
+    }
+
+    /**
+     * Ratings are dated from fromDate to toDate inclusive (mm/dd/yyyy).
+     */
+    public MenuGenerator setDateRange(String fromDate, String toDate)
+    {
+        int from = DateCodec.parse(fromDate);
+        int to = DateCodec.parse(toDate);
+        if (from == DateCodec.INVALID || to == DateCodec.INVALID || to < from)
+        {
+            throw new IllegalArgumentException("Invalid date range - dates must be real days in mm/dd/yyyy form, oldest first");
+        }
+        firstDay = from;
+        lastDay = to;
+        return this;
+    }
+
+    /**
+     * The name of the item at the given position; every name is distinct ignoring case.
+     */
+    public static String getItemName(int index)
+    {
+        return "Item " + index;
+    }
+
+    public void writeTextFile(String fileName) throws IOException
+    {
+        Random random = new Random(seed);
+        Writer out = new BufferedWriter(new FileWriter(fileName), 1 << 16);
+        try
+        {
+            for (int i = 0; i < numItems; i++)
+            {
+                out.write(nextItem(random, i).getState());
+                out.write("\r\n");
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    public void writeObjectFile(String fileName) throws IOException
+    {
+        Random random = new Random(seed);
+        // keyed by lower-case name, the same map Restaurant.writeToFile writes
+        HashMap<String, MenuItem> items = new HashMap<String, MenuItem>(numItems * 4 / 3 + 1);
+        for (int i = 0; i < numItems; i++)
+        {
+            MenuItem item = nextItem(random, i);
+            items.put(item.getName().toLowerCase(), item);
+        }
+        ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16));
+        try
+        {
+            out.writeObject(items);
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    private MenuItem nextItem(Random random, int index) throws IOException
+    {
+        long price = 199 + random.nextInt(2800);
+        long wholesale = price / 5 + random.nextInt((int) (price / 4));
+        int numOrders = random.nextInt(500);
+        MenuCategory cat = MenuCategory.values()[pick(random, categoryWeights)];
+        int numRatings = minRatings + (int) ((maxRatings - minRatings + 1) * spread(random));
+        // a dictionary per item keeps memory flat however many reviewers there are
+        RatingStore ratings = new RatingStore(new ReviewerDictionary(), numRatings);
+        for (int i = 0; i < numRatings; i++)
+        {
+            String reviewer = "Reviewer" + random.nextInt(numReviewers);
+            int day = firstDay + random.nextInt(lastDay - firstDay + 1);
+            ratings.add(ratings.getDictionary().intern(reviewer), day, 1 + pick(random, SCORE_WEIGHTS));
+        }
+        try
+        {
+            return new MenuItem(getItemName(index), cat, 4 + random.nextInt(13), 100 + random.nextInt(901), price, wholesale,
+                                numOrders, numOrders * wholesale, numOrders * price, random.nextInt(10) > 0,
+                                random.nextInt(10) == 0, ratings);
+        }
+        catch (MenuItemException mie)
+        {
+            throw new IOException(mie.getMessage());
+        }
+    }
+
+    // a number from 0 up to (not including) 1, bunched toward 0 for the long tail
+    private double spread(Random random)
+    {
+        double u = random.nextDouble();
+        return ratingDistribution == LONG_TAIL ? u * u * u : u;
+    }
+
+    // an index chosen with probability proportional to its weight
+    private static int pick(Random random, int[] weights)
+    {
+        int total = 0;
+        for (int weight : weights)
+        {
+            total += weight;
+        }
+        int r = random.nextInt(total);
+        int result = 0;
+        while (r >= weights[result])
+        {
+            r -= weights[result];
+            result++;
+        }
+        return result;
+    }
+
+    public static void main(String[] args)
+    {
+        if (args.length < 1 || args.length % 2 == 0)
+        {
+            System.out.println("Usage: java MenuGenerator outFile [-format text|object] [-items n] [-seed n]");
+            System.out.println("       [-mix MAIN=4,DESSERT=2,SIDE=3,DRINK=1] [-ratings uniform|longtail[:min-max]]");
+            System.out.println("       [-reviewers n] [-dates mm/dd/yyyy-mm/dd/yyyy]");
+            return;
+        }
+        try
+        {
+            boolean isObject = false;
+            long seed = 1;
+            for (int i = 1; i < args.length; i += 2)
+            {
+                if (args[i].equals("-seed"))
+                {
+                    seed = Long.parseLong(args[i + 1]);
+                }
+            }
+            MenuGenerator generator = new MenuGenerator(seed);
+            for (int i = 1; i < args.length; i += 2)
+            {
+                String value = args[i + 1];
+                if (args[i].equals("-format"))
+                {
+                    isObject = value.equalsIgnoreCase("object");
+                }
+                else if (args[i].equals("-items"))
+                {
+                    generator.setItemCount(Integer.parseInt(value));
+                }
+                else if (args[i].equals("-mix"))
+                {
+                    int[] weights = new int[MenuCategory.values().length];
+                    for (String pair : value.split(","))
+                    {
+                        String[] parts = pair.split("=");
+                        weights[MenuCategory.valueOf(parts[0].trim().toUpperCase()).ordinal()] = Integer.parseInt(parts[1].trim());
+                    }
+                    generator.setCategoryMix(weights);
+                }
+                else if (args[i].equals("-ratings"))
+                {
+                    // a bare distribution name keeps the current range
+                    String[] parts = value.split(":", 2);
+                    int distribution = parts[0].equalsIgnoreCase("longtail") ? LONG_TAIL : UNIFORM;
+                    if (distribution == UNIFORM && !parts[0].equalsIgnoreCase("uniform"))
+                    {
+                        throw new IllegalArgumentException("Unknown rating distribution " + parts[0] + " - use uniform or longtail");
+                    }
+                    int min = generator.minRatings;
+                    int max = generator.maxRatings;
+                    if (parts.length > 1)
+                    {
+                        String[] range = parts[1].split("-");
+                        if (range.length != 2)
+                        {
+                            throw new IllegalArgumentException("Ratings range " + parts[1] + " must be min-max");
+                        }
+                        min = Integer.parseInt(range[0].trim());
+                        max = Integer.parseInt(range[1].trim());
+                    }
+                    generator.setRatingsPerItem(distribution, min, max);
+                }
+                else if (args[i].equals("-reviewers"))
+                {
+                    generator.setReviewerCount(Integer.parseInt(value));
+                }
+                else if (args[i].equals("-dates"))
+                {
+                    generator.setDateRange(value.substring(0, DateCodec.DATE_LENGTH), value.substring(DateCodec.DATE_LENGTH + 1));
+                }
+            }
+            long start = System.nanoTime();
+            if (isObject)
+            {
+                generator.writeObjectFile(args[0]);
+            }
+            else
+            {
+                generator.writeTextFile(args[0]);
+            }
+            System.out.printf("Wrote %s (%,d bytes) in %.1f s%n", args[0], new File(args[0]).length(), (System.nanoTime() - start) / 1e9);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            System.out.println("Could not generate the menu: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,253 @@
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Case-insensitive map from item name to MenuItem, using open addressing with linear probing.
+ * Names are hashed and compared a char at a time through Character.toLowerCase, so lookups
+ * take any CharSequence and never build a lower-case copy of the key.
+ */
+public class MenuIndex implements java.io.Serializable
+{
+    private static final long serialVersionUID = 1L;
+    private static final int MIN_CAPACITY = 16;
+    
+    private MenuItem[] items;
+    private int[] hashes;
+    private int size;
+    private int modCount;
+    
+    public MenuIndex()
+    {
+        this(0);
+    }
+    
+    public MenuIndex(int expectedSize)
+    {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expectedSize)
+        {
+            capacity *= 2;
+        }
+        items = new MenuItem[capacity];
+        hashes = new int[capacity];
+    }
+    
+    public int size()
+    {
+        return size;
+    }
+    
+    /**
+     * Counts additions and removals, so a cached lookup can tell whether it may be stale.
+     */
+    public int getModCount()
+    {
+        return modCount;
+    }
+    
+    public MenuItem get(CharSequence name)
+    {
+        int hash = hash(name);
+        int mask = items.length - 1;
+        for (int slot = hash & mask; items[slot] != null; slot = (slot + 1) & mask)
+        {
+            if (hashes[slot] == hash && equalsIgnoreCase(items[slot].getName(), name))
+            {
+                return items[slot];
+            }
+        }
+        return null;
+    }
+    
+    public boolean containsKey(CharSequence name)
+    {
+        return get(name) != null;
+    }
+    
+    /**
+     * Adds the item under its name unless an item with the same name (ignoring case) is present.
+     */
+    public boolean put(MenuItem item)
+    {
+        if (get(item.getName()) != null)
+        {
+            return false;
+        }
+        if (size + 1 > items.length * 3 / 4)
+        {
+            resize(items.length * 2);
+        }
+        insert(item, hash(item.getName()));
+        size++;
+        modCount++;
+        return true;
+    }
+    
+    private void insert(MenuItem item, int hash)
+    {
+        int mask = items.length - 1;
+        int slot = hash & mask;
+        while (items[slot] != null)
+        {
+            slot = (slot + 1) & mask;
+        }
+        items[slot] = item;
+        hashes[slot] = hash;
+    }
+    
+    private void resize(int capacity)
+    {
+        MenuItem[] oldItems = items;
+        int[] oldHashes = hashes;
+        items = new MenuItem[capacity];
+        hashes = new int[capacity];
+        for (int i = 0; i < oldItems.length; i++)
+        {
+            if (oldItems[i] != null)
+            {
+                insert(oldItems[i], oldHashes[i]);
+            }
+        }
+    }
+    
+    public MenuItem remove(CharSequence name)
+    {
+        int hash = hash(name);
+        int mask = items.length - 1;
+        for (int slot = hash & mask; items[slot] != null; slot = (slot + 1) & mask)
+        {
+            if (hashes[slot] == hash && equalsIgnoreCase(items[slot].getName(), name))
+            {
+                MenuItem removed = items[slot];
+                deleteSlot(slot);
+                size--;
+                modCount++;
+                return removed;
+            }
+        }
+        return null;
+    }
+    
+    // backward-shift deletion: pull later entries of the probe run into the gap so no tombstones are needed
+    private void deleteSlot(int gap)
+    {
+        int mask = items.length - 1;
+        items[gap] = null;
+        for (int slot = (gap + 1) & mask; items[slot] != null; slot = (slot + 1) & mask)
+        {
+            int home = hashes[slot] & mask;
+            // move the entry back if its home slot is not cyclically between the gap and its slot
+            if (((slot - home) & mask) >= ((slot - gap) & mask))
+            {
+                items[gap] = items[slot];
+                hashes[gap] = hashes[slot];
+                items[slot] = null;
+                gap = slot;
+            }
+        }
+    }
+    
+    public Collection<MenuItem> values()
+    {
+        return new AbstractCollection<MenuItem>()
+        {
+            public int size()
+            {
+                return size;
+            }
+            
+            public Iterator<MenuItem> iterator()
+            {
+                return new Iterator<MenuItem>()
+                {
+                    private int slot = nextSlot(0);
+                    private int expectedModCount = modCount;
+                    
+                    public boolean hasNext()
+                    {
+                        return slot < items.length;
+                    }
+                    
+                    public MenuItem next()
+                    {
+                        if (modCount != expectedModCount)
+                        {
+                            throw new ConcurrentModificationException();
+                        }
+                        if (slot >= items.length)
+                        {
+                            throw new NoSuchElementException();
+                        }
+                        MenuItem result = items[slot];
+                        slot = nextSlot(slot + 1);
+                        return result;
+                    }
+                };
+            }
+        };
+    }
+    
+    /**
+     * The number of slots, which changes only when the table is resized.
+     */
+    public int getCapacity()
+    {
+        return items.length;
+    }
+    
+    /**
+     * Adds up to max items to page in slot order starting at fromSlot, and returns the slot to
+     * continue from, or -1 once every slot has been passed.
+     */
+    public int page(int fromSlot, int max, Collection<MenuItem> page)
+    {
+        int slot = nextSlot(Math.max(fromSlot, 0));
+        for (int count = 0; count < max && slot < items.length; count++)
+        {
+            page.add(items[slot]);
+            slot = nextSlot(slot + 1);
+        }
+        return slot < items.length ? slot : -1;
+    }
+    
+    private int nextSlot(int from)
+    {
+        while (from < items.length && items[from] == null)
+        {
+            from++;
+        }
+        return from;
+    }
+    
+    public static int hash(CharSequence name)
+    {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++)
+        {
+            h = 31 * h + Character.toLowerCase(name.charAt(i));
+        }
+        // spread the high bits down since the table index uses the low bits
+        return h ^ (h >>> 16);
+    }
+    
+    public static boolean equalsIgnoreCase(String key, CharSequence name)
+    {
+        if (key.length() != name.length())
+        {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++)
+        {
+            char c1 = key.charAt(i);
+            char c2 = name.charAt(i);
+            if (c1 != c2 && Character.toLowerCase(c1) != Character.toLowerCase(c2))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
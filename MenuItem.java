@@ -1,5 +1,8 @@
 import java.util.ArrayList;
-import java.text.DecimalFormat;
+import java.util.List;
+import java.io.IOException;
+import java.io.ObjectStreamField;
+import utilities.Money;
 
 public class MenuItem implements Statable, java.io.Serializable
 {
@@ -7,21 +10,43 @@ public class MenuItem implements Statable, java.io.Serializable
     private MenuCategory type;
     private int servingSize; // in ounces
     private int calories;
-    private double price;
-    private double wholesaleCost;
+    private long price; // in cents
+    private long wholesaleCost; // in cents
     private int numOrders;
-    private double totalWholesaleCost;
-    private double totalSales;
+    private long totalWholesaleCost; // in cents
+    private long totalSales; // in cents
     private boolean active;
     private boolean recommended;
-    private ArrayList<Rating> ratings;
+    private RatingStore ratings;
     
+    private static final long serialVersionUID = -907642883444509331L;
     public static final int MIN_SERVING_SIZE = 3;
     public static final int MAX_PERCENTAGE = 20;
-    private static final DecimalFormat FMT = new DecimalFormat("$#,##0.00");
+    
+    // object files store money as double dollars, as they did before amounts were kept in cents
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("name", String.class),
+        new ObjectStreamField("type", MenuCategory.class),
+        new ObjectStreamField("servingSize", int.class),
+        new ObjectStreamField("calories", int.class),
+        new ObjectStreamField("price", double.class),
+        new ObjectStreamField("wholesaleCost", double.class),
+        new ObjectStreamField("numOrders", int.class),
+        new ObjectStreamField("totalWholesaleCost", double.class),
+        new ObjectStreamField("totalSales", double.class),
+        new ObjectStreamField("active", boolean.class),
+        new ObjectStreamField("recommended", boolean.class),
+        new ObjectStreamField("ratings", ArrayList.class)
+    };
     
     public MenuItem(String name, MenuCategory type, int servingSize, int calories, double price,
                     double wholesaleCost) throws MenuItemException
+    {
+        this(name, type, servingSize, calories, Money.toCents(price), Money.toCents(wholesaleCost));
+    }
+    
+    public MenuItem(String name, MenuCategory type, int servingSize, int calories, long price,
+                    long wholesaleCost) throws MenuItemException
     {
         if (name == null || name.equals("") || type == null || type.equals("") || servingSize < MIN_SERVING_SIZE || calories < 0 || price <= 0 || wholesaleCost <= 0 ||
             wholesaleCost > price)
@@ -35,13 +60,31 @@ public class MenuItem implements Statable, java.io.Serializable
         this.calories = calories;
         this.price = price;
         this.wholesaleCost = wholesaleCost;
-        ratings = new ArrayList<Rating>();
+        ratings = new RatingStore(new ReviewerDictionary(), 0);
     }
     
     public MenuItem(String name, MenuCategory type, int servingSize, int calories, double price,
                     double wholesaleCost, int numOrders, double totalCost,
                     double totalSales, boolean active, boolean recommended,
                     ArrayList<Rating> ratings) throws MenuItemException
+    {
+        this(name, type, servingSize, calories, Money.toCents(price), Money.toCents(wholesaleCost), numOrders,
+             Money.toCents(totalCost), Money.toCents(totalSales), active, recommended, ratings);
+    }
+    
+    public MenuItem(String name, MenuCategory type, int servingSize, int calories, long price,
+                    long wholesaleCost, int numOrders, long totalCost,
+                    long totalSales, boolean active, boolean recommended,
+                    ArrayList<Rating> ratings) throws MenuItemException
+    {
+        this(name, type, servingSize, calories, price, wholesaleCost, numOrders, totalCost, totalSales, active, recommended,
+             new RatingStore(new ReviewerDictionary(), ratings));
+    }
+    
+    public MenuItem(String name, MenuCategory type, int servingSize, int calories, long price,
+                    long wholesaleCost, int numOrders, long totalCost,
+                    long totalSales, boolean active, boolean recommended,
+                    RatingStore ratings) throws MenuItemException
     {
         this(name, type, servingSize, calories, price, wholesaleCost);
         this.numOrders = numOrders;
@@ -52,6 +95,43 @@ public class MenuItem implements Statable, java.io.Serializable
         this.ratings = ratings;
     }
     
+    private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException
+    {
+        java.io.ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("name", name);
+        fields.put("type", type);
+        fields.put("servingSize", servingSize);
+        fields.put("calories", calories);
+        fields.put("price", Money.toDollars(price));
+        fields.put("wholesaleCost", Money.toDollars(wholesaleCost));
+        fields.put("numOrders", numOrders);
+        fields.put("totalWholesaleCost", Money.toDollars(totalWholesaleCost));
+        fields.put("totalSales", Money.toDollars(totalSales));
+        fields.put("active", active);
+        fields.put("recommended", recommended);
+        fields.put("ratings", ratings.toArrayList());
+        out.writeFields();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException
+    {
+        java.io.ObjectInputStream.GetField fields = in.readFields();
+        name = (String) fields.get("name", null);
+        type = (MenuCategory) fields.get("type", null);
+        servingSize = fields.get("servingSize", 0);
+        calories = fields.get("calories", 0);
+        price = Money.toCents(fields.get("price", 0.0));
+        wholesaleCost = Money.toCents(fields.get("wholesaleCost", 0.0));
+        numOrders = fields.get("numOrders", 0);
+        totalWholesaleCost = Money.toCents(fields.get("totalWholesaleCost", 0.0));
+        totalSales = Money.toCents(fields.get("totalSales", 0.0));
+        active = fields.get("active", false);
+        recommended = fields.get("recommended", false);
+        // the restaurant that reads the item moves these over to its own dictionary
+        ratings = new RatingStore(new ReviewerDictionary(), (ArrayList<Rating>) fields.get("ratings", null));
+    }
+    
     public String getName()
     {
         return name;
@@ -62,6 +142,11 @@ public class MenuItem implements Statable, java.io.Serializable
         return type.toString();
     }
     
+    public MenuCategory getCategory()
+    {
+        return type;
+    }
+    
     public int getServingSize()
     {
         return servingSize;
@@ -72,7 +157,22 @@ public class MenuItem implements Statable, java.io.Serializable
         return calories;
     }
     
+    public double getPrice()
+    {
+        return Money.toDollars(price);
+    }
+    
+    public long getPriceCents()
+    {
+        return price;
+    }
+    
     public double getWholesaleCost()
+    {
+        return Money.toDollars(wholesaleCost);
+    }
+    
+    public long getWholesaleCostCents()
     {
         return wholesaleCost;
     }
@@ -87,12 +187,45 @@ public class MenuItem implements Statable, java.io.Serializable
         return ratings.size();
     }
     
+    public long getRatingSum()
+    {
+        return ratings.sum();
+    }
+    
+    public RatingHistogram getRatingHistogram()
+    {
+        return ratings.getHistogram();
+    }
+    
+    public RatingTimeline getRatingTimeline()
+    {
+        return ratings.getTimeline();
+    }
+    
+    /**
+     * Number of ratings dated fromDay to toDay (inclusive epoch days).
+     */
+    public int getNumRatings(int fromDay, int toDay)
+    {
+        return ratings.getTimeline().getCount(fromDay, toDay);
+    }
+    
     public double getTotalWholesaleCost()
+    {
+        return Money.toDollars(totalWholesaleCost);
+    }
+    
+    public long getTotalWholesaleCostCents()
     {
         return totalWholesaleCost;
     }
     
     public double getTotalSales()
+    {
+        return Money.toDollars(totalSales);
+    }
+    
+    public long getTotalSalesCents()
     {
         return totalSales;
     }
@@ -107,16 +240,46 @@ public class MenuItem implements Statable, java.io.Serializable
         return recommended;
     }
     
+    public List<Rating> getRatings()
+    {
+        return ratings.asList();
+    }
+    
+    public RatingStore getRatingStore()
+    {
+        return ratings;
+    }
+    
     public String getReviews()
     {
         StringBuilder builder = new StringBuilder();
-        for (Rating r : ratings)
+        appendReviews(builder);
+        return builder.toString();
+    }
+    
+    /**
+     * Reviews dated fromDay to toDay (inclusive epoch days), oldest first.
+     */
+    public String getReviews(int fromDay, int toDay)
+    {
+        StringBuilder builder = new StringBuilder();
+        for (int i : ratings.indexesByDate(fromDay, toDay))
         {
-            builder.append(r + "\r\n");
+            ratings.appendReview(builder, i);
+            builder.append("\r\n");
         }
         return builder.toString();
     }
     
+    private void appendReviews(StringBuilder builder)
+    {
+        for (int i = 0; i < ratings.size(); i++)
+        {
+            ratings.appendReview(builder, i);
+            builder.append("\r\n");
+        }
+    }
+    
     public boolean setName(String name)
     {
         boolean result = false;
@@ -157,11 +320,11 @@ public class MenuItem implements Statable, java.io.Serializable
         {
             if (isWholesale)
             {
-                wholesaleCost = wholesaleCost * (1 + percentage/100.0);
+                wholesaleCost = Money.percentChange(wholesaleCost, percentage);
             }
             else
             {
-                price = price * (1 + percentage/100.0);
+                price = Money.percentChange(price, percentage);
             }
             result = true;
         }
@@ -171,27 +334,64 @@ public class MenuItem implements Statable, java.io.Serializable
     public String getState()
     {
         StringBuilder builder = new StringBuilder();
-        builder.append(name + "," + type + "," + servingSize + "," + calories + "," + price + "," + wholesaleCost + "," + numOrders + ",");
-        builder.append(totalWholesaleCost + "," + totalSales + "," + active + "," + recommended + "," + ratings.size());
-        for (Rating r : ratings)
+        appendState(builder);
+        return builder.toString();
+    }
+    
+    public void writeState(Appendable out) throws IOException
+    {
+        StringBuilder builder = new StringBuilder();
+        appendState(builder);
+        out.append(builder);
+    }
+    
+    /**
+     * Appends the same text as getState, so a caller writing many items can reuse one builder.
+     */
+    public void appendState(StringBuilder builder)
+    {
+        builder.append(name).append(',').append(type).append(',').append(servingSize).append(',').append(calories).append(',');
+        Money.appendPlain(builder, price);
+        builder.append(',');
+        Money.appendPlain(builder, wholesaleCost);
+        builder.append(',').append(numOrders).append(',');
+        Money.appendPlain(builder, totalWholesaleCost);
+        builder.append(',');
+        Money.appendPlain(builder, totalSales);
+        builder.append(',').append(active).append(',').append(recommended).append(',').append(ratings.size());
+        for (int i = 0; i < ratings.size(); i++)
         {
-            builder.append("," + r.getState());
+            builder.append(',');
+            ratings.appendState(builder, i);
         }
-        return builder.toString();
     }
 
     public String toString()
     {
         StringBuilder builder = new StringBuilder();
-        builder.append("Name: " + name + " Category: " + type + " Serving Size (oz): " + servingSize + " Calories: " + calories +
-                       "\r\nPrice: " + FMT.format(price) + " Wholesale Cost: " + FMT.format(wholesaleCost) + " # Orders: " + numOrders);
-        builder.append("\r\nTotal Wholesale Cost: " + FMT.format(totalWholesaleCost) + " Total Sales: " + FMT.format(totalSales) + " Active: " + active);
-        builder.append(" Recommended: " + recommended + " Ratings:\r\n");
-        for (Rating r : ratings)
-        {
-            builder.append(r + "\r\n");
-        }
-        return builder.toString();        
+        appendTo(builder);
+        return builder.toString();
+    }
+    
+    public void writeTo(Appendable out) throws IOException
+    {
+        StringBuilder builder = new StringBuilder();
+        appendTo(builder);
+        out.append(builder);
+    }
+    
+    /**
+     * Appends the same text as toString.
+     */
+    public void appendTo(StringBuilder builder)
+    {
+        builder.append("Name: ").append(name).append(" Category: ").append(type).append(" Serving Size (oz): ").append(servingSize);
+        builder.append(" Calories: ").append(calories).append("\r\nPrice: ").append(Money.format(price));
+        builder.append(" Wholesale Cost: ").append(Money.format(wholesaleCost)).append(" # Orders: ").append(numOrders);
+        builder.append("\r\nTotal Wholesale Cost: ").append(Money.format(totalWholesaleCost));
+        builder.append(" Total Sales: ").append(Money.format(totalSales)).append(" Active: ").append(active);
+        builder.append(" Recommended: ").append(recommended).append(" Ratings:\r\n");
+        appendReviews(builder);
     }
     
     public void discontinue()
@@ -221,8 +421,7 @@ public class MenuItem implements Statable, java.io.Serializable
         {
             if (active)
             {
-               Rating theRating = new Rating(rater, date, rating);
-               ratings.add(theRating);
+               ratings.add(rater, date, rating);
                result = true;
             }
         }
@@ -235,16 +434,45 @@ public class MenuItem implements Statable, java.io.Serializable
     
     public double getAverageRating()
     {
-        double result = 0;
-        if (ratings.size() > 0)
-        {
-            for (Rating r: ratings)
-            {
-                result += r.getRating();
-            }
-            result /= ratings.size();
-        }
-        return result;
+        return ratings.getHistogram().getAverage();
+    }
+    
+    /**
+     * Average of the ratings dated fromDay to toDay (inclusive epoch days), 0 if there are none.
+     */
+    public double getAverageRating(int fromDay, int toDay)
+    {
+        return ratings.getTimeline().getAverage(fromDay, toDay);
+    }
+    
+    public double getMedianRating()
+    {
+        return ratings.getHistogram().getMedian();
+    }
+    
+    public int getModeRating()
+    {
+        return ratings.getHistogram().getMode();
+    }
+    
+    public double getFiveStarShare()
+    {
+        return ratings.getHistogram().getShare(Rating.MAX_RATING);
+    }
+    
+    public double getBayesianAverage(double priorMean, double priorWeight)
+    {
+        return ratings.getHistogram().getBayesianAverage(priorMean, priorWeight);
+    }
+    
+    public double getProfit()
+    {
+        return Money.toDollars(getProfitCents());
+    }
+    
+    public long getProfitCents()
+    {
+        return totalSales - totalWholesaleCost;
     }
     
     public boolean order(int numOrders)
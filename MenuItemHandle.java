@@ -0,0 +1,42 @@
+/**
+ * A menu item looked up once with Restaurant.resolve, so repeated order and addRating calls
+ * skip hashing the name.  The handle remembers the menu's modification count; after items are
+ * added or removed it looks the name up again on its next use, so it never acts on an item
+ * that has left the menu.
+ */
+public class MenuItemHandle
+{
+    private Restaurant restaurant;
+    private String name;
+    private MenuItem item;
+    private int modCount;
+    
+    MenuItemHandle(Restaurant restaurant, String name, MenuItem item, int modCount)
+    {
+        this.restaurant = restaurant;
+        this.name = name;
+        this.item = item;
+        this.modCount = modCount;
+    }
+    
+    public String getName()
+    {
+        return name;
+    }
+    
+    Restaurant getRestaurant()
+    {
+        return restaurant;
+    }
+    
+    MenuItem getItem(int currentModCount)
+    {
+        return currentModCount == modCount ? item : null;
+    }
+    
+    void refresh(MenuItem item, int modCount)
+    {
+        this.item = item;
+        this.modCount = modCount;
+    }
+}
@@ -0,0 +1,24 @@
+import java.util.Comparator;
+
+/**
+ * Orders items by their average rating over a window of days, highest first.  Items with no
+ * ratings in the window average 0 and sort last.
+ */
+public class MenuItemRecentRatingComparator implements Comparator<MenuItem>
+{
+    private int fromDay;
+    private int toDay;
+
+    public MenuItemRecentRatingComparator(int fromDay, int toDay)
+    {
+        this.fromDay = fromDay;
+        this.toDay = toDay;
+    }
+
+    public int compare(MenuItem item1, MenuItem item2)
+    {
+        double r1 = item1.getAverageRating(fromDay, toDay);
+        double r2 = item2.getAverageRating(fromDay, toDay);
+        return Double.compare(r2, r1); // from highest to lowest
+    }
+}
@@ -0,0 +1,498 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the mutating calls made on a Restaurant, so a change costs one small record
+ * instead of a rewrite of the whole menu.  Each record is framed as
+ * <pre>
+ *   int payload length, payload (long sequence, byte op, op fields), int CRC32 of payload
+ * </pre>
+ * Records are appended to an in-memory buffer and a background thread writes and fsyncs the
+ * buffer every COMMIT_INTERVAL_MS (sooner once COMMIT_BYTES are pending), so many changes share
+ * one fsync.  Call sync to wait until everything logged so far is on disk.  A torn record at the
+ * end of the file (from a crash mid-write) ends replay and is cut off when the journal reopens.
+ */
+public class MenuJournal
+{
+    public static final int COMMIT_INTERVAL_MS = 10;
+    public static final int COMMIT_BYTES = 64 * 1024;
+    
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final byte ACTIVATE = 3;
+    private static final byte ACTIVATE_ALL = 4;
+    private static final byte DISCONTINUE = 5;
+    private static final byte DISCONTINUE_ALL = 6;
+    private static final byte UPDATE_PRICE = 7;
+    private static final byte UPDATE_PRICE_ALL = 8;
+    private static final byte ORDER = 9;
+    private static final byte RATING = 10;
+    private static final byte SET_CALORIES = 11;
+    private static final byte SET_SERVING_SIZE = 12;
+    private static final byte BATCH = 13;
+    private static final MenuCategory[] CATEGORIES = MenuCategory.values();
+    
+    private String fileName;
+    private FileChannel channel;
+    private Thread committer;
+    
+    // the fields below are guarded by this
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private DataOutputStream pendingOut = new DataOutputStream(pending);
+    private ByteArrayOutputStream record = new ByteArrayOutputStream();
+    private DataOutputStream recordOut = new DataOutputStream(record);
+    private CRC32 crc = new CRC32();
+    private long lastSequence;
+    private long durableSequence;
+    private IOException failure;
+    private boolean closed;
+    
+    /**
+     * Opens (creating if needed) the journal for appending, cutting off any torn record at the end.
+     * Sequence numbers continue after the larger of the last record and startSequence.
+     */
+    public MenuJournal(String fileName, long startSequence) throws IOException
+    {
+        this.fileName = fileName;
+        long[] end = scan(fileName, null, 0);
+        lastSequence = Math.max(end[1], startSequence);
+        durableSequence = lastSequence;
+        channel = FileChannel.open(new File(fileName).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(end[0]);
+        channel.position(end[0]);
+        
+        committer = new Thread("MenuJournal committer " + fileName)
+        {
+            public void run()
+            {
+                commitLoop();
+            }
+        };
+        committer.setDaemon(true);
+        committer.start();
+    }
+    
+    public String getFileName()
+    {
+        return fileName;
+    }
+    
+    public synchronized long getLastSequence()
+    {
+        return lastSequence;
+    }
+    
+    public synchronized void logAdd(String name, MenuCategory cat, int servingSize, int numCalories, double price, double wholesale)
+    {
+        try
+        {
+            begin(ADD).writeUTF(name);
+            recordOut.writeByte(cat.ordinal());
+            recordOut.writeInt(servingSize);
+            recordOut.writeInt(numCalories);
+            recordOut.writeDouble(price);
+            recordOut.writeDouble(wholesale);
+            end();
+        }
+        catch (IOException ioe)
+        {
+            throw new FileIOException(ioe.getMessage());
+        }
+    }
+    
+    public synchronized void logRemove(String name)
+    {
+        logName(REMOVE, name);
+    }
+    
+    /** A null name records activating every item. */
+    public synchronized void logActivate(String name)
+    {
+        logName(name == null ? ACTIVATE_ALL : ACTIVATE, name);
+    }
+    
+    /** A null name records discontinuing every item. */
+    public synchronized void logDiscontinue(String name)
+    {
+        logName(name == null ? DISCONTINUE_ALL : DISCONTINUE, name);
+    }
+    
+    /** A null name records a price update of every item. */
+    public synchronized void logUpdatePrice(boolean isWholesale, String name, int percentage)
+    {
+        try
+        {
+            DataOutputStream out = begin(name == null ? UPDATE_PRICE_ALL : UPDATE_PRICE);
+            if (name != null)
+            {
+                out.writeUTF(name);
+            }
+            out.writeBoolean(isWholesale);
+            out.writeInt(percentage);
+            end();
+        }
+        catch (IOException ioe)
+        {
+            throw new FileIOException(ioe.getMessage());
+        }
+    }
+    
+    public synchronized void logOrder(String name, int numOrders)
+    {
+        logNameAndInt(ORDER, name, numOrders);
+    }
+    
+    /** One record for the whole ticket, so replay orders all of its lines or none of them. */
+    public synchronized void logBatch(OrderTicket ticket)
+    {
+        try
+        {
+            begin(BATCH).writeInt(ticket.size());
+            for (int i = 0; i < ticket.size(); i++)
+            {
+                recordOut.writeUTF(ticket.getItemName(i));
+                recordOut.writeInt(ticket.getQuantity(i));
+            }
+            end();
+        }
+        catch (IOException ioe)
+        {
+            throw new FileIOException(ioe.getMessage());
+        }
+    }
+    
+    public synchronized void logRating(String name, String reviewer, String date, int rating)
+    {
+        try
+        {
+            begin(RATING).writeUTF(name);
+            recordOut.writeUTF(reviewer);
+            recordOut.writeUTF(date);
+            recordOut.writeByte(rating);
+            end();
+        }
+        catch (IOException ioe)
+        {
+            throw new FileIOException(ioe.getMessage());
+        }
+    }
+    
+    public synchronized void logSetCalories(String name, int numCalories)
+    {
+        logNameAndInt(SET_CALORIES, name, numCalories);
+    }
+    
+    public synchronized void logSetServingSize(String name, int servingSize)
+    {
+        logNameAndInt(SET_SERVING_SIZE, name, servingSize);
+    }
+    
+    private void logName(byte op, String name)
+    {
+        try
+        {
+            DataOutputStream out = begin(op);
+            if (name != null)
+            {
+                out.writeUTF(name);
+            }
+            end();
+        }
+        catch (IOException ioe)
+        {
+            throw new FileIOException(ioe.getMessage());
+        }
+    }
+    
+    private void logNameAndInt(byte op, String name, int value)
+    {
+        try
+        {
+            begin(op).writeUTF(name);
+            recordOut.writeInt(value);
+            end();
+        }
+        catch (IOException ioe)
+        {
+            throw new FileIOException(ioe.getMessage());
+        }
+    }
+    
+    /**
+     * Throws if the journal is closed or a commit has failed.  Restaurant calls this before it
+     * changes anything, so a change is never made in memory that the journal refuses; the log
+     * calls themselves only buffer the record and do not fail.
+     */
+    public synchronized void checkWritable() throws IOException
+    {
+        if (closed)
+        {
+            throw new IOException("Journal " + fileName + " is closed");
+        }
+        if (failure != null)
+        {
+            throw failure;
+        }
+    }
+    
+    // begin and end bracket one record and are only called while holding the monitor; a record
+    // logged after a commit failed stays buffered and the next checkWritable reports the failure
+    private DataOutputStream begin(byte op) throws IOException
+    {
+        record.reset();
+        recordOut.writeLong(lastSequence + 1);
+        recordOut.writeByte(op);
+        return recordOut;
+    }
+    
+    private void end() throws IOException
+    {
+        crc.reset();
+        crc.update(record.toByteArray());
+        pendingOut.writeInt(record.size());
+        record.writeTo(pendingOut);
+        pendingOut.writeInt((int) crc.getValue());
+        lastSequence++;
+        if (pending.size() >= COMMIT_BYTES)
+        {
+            notifyAll();
+        }
+    }
+    
+    private void commitLoop()
+    {
+        boolean done = false;
+        while (!done)
+        {
+            byte[] batch;
+            long batchSequence;
+            synchronized (this)
+            {
+                if (!closed && pending.size() < COMMIT_BYTES)
+                {
+                    try
+                    {
+                        wait(COMMIT_INTERVAL_MS);
+                    }
+                    catch (InterruptedException ie)
+                    {
+                        closed = true;
+                    }
+                }
+                done = closed;
+                batch = pending.toByteArray();
+                batchSequence = lastSequence;
+                pending.reset();
+            }
+            
+            IOException error = null;
+            if (batch.length > 0)
+            {
+                try
+                {
+                    ByteBuffer buffer = ByteBuffer.wrap(batch);
+                    while (buffer.hasRemaining())
+                    {
+                        channel.write(buffer);
+                    }
+                    channel.force(false);
+                }
+                catch (IOException ioe)
+                {
+                    error = ioe;
+                }
+            }
+            
+            synchronized (this)
+            {
+                if (error != null)
+                {
+                    failure = error;
+                    done = true;
+                }
+                else
+                {
+                    durableSequence = batchSequence;
+                }
+                notifyAll();
+            }
+        }
+    }
+    
+    /**
+     * Waits until every record logged so far has been written and fsynced.
+     */
+    public synchronized void sync() throws IOException
+    {
+        long target = lastSequence;
+        notifyAll();
+        while (durableSequence < target && failure == null && committer.isAlive())
+        {
+            try
+            {
+                wait();
+            }
+            catch (InterruptedException ie)
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for journal " + fileName);
+            }
+        }
+        if (failure != null)
+        {
+            throw failure;
+        }
+    }
+    
+    /**
+     * Empties the journal once its records are safely in a snapshot; sequence numbers keep counting.
+     */
+    public synchronized void truncate() throws IOException
+    {
+        sync();
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+    }
+    
+    public void close() throws IOException
+    {
+        synchronized (this)
+        {
+            closed = true;
+            notifyAll();
+        }
+        try
+        {
+            committer.join();
+        }
+        catch (InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (failure != null)
+        {
+            throw failure;
+        }
+    }
+    
+    /**
+     * Applies every intact record with a sequence number greater than afterSequence to rest and
+     * returns the sequence number of the last record in the file (0 if there is none).
+     */
+    public static long replay(String fileName, Restaurant rest, long afterSequence) throws IOException
+    {
+        return scan(fileName, rest, afterSequence)[1];
+    }
+    
+    // returns {length of the intact prefix, last sequence number}, applying records to rest if not null
+    private static long[] scan(String fileName, Restaurant rest, long afterSequence) throws IOException
+    {
+        long validLength = 0;
+        long sequence = 0;
+        File file = new File(fileName);
+        if (!file.exists())
+        {
+            return new long[] {0, 0};
+        }
+        
+        CRC32 check = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16)))
+        {
+            long remaining = file.length();
+            while (remaining >= 4)
+            {
+                int length = in.readInt();
+                if (length < 9 || length > remaining - 8)
+                {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                int expected = in.readInt();
+                check.reset();
+                check.update(payload);
+                if ((int) check.getValue() != expected)
+                {
+                    break;
+                }
+                
+                DataInputStream fields = new DataInputStream(new ByteArrayInputStream(payload));
+                sequence = fields.readLong();
+                byte op = fields.readByte();
+                if (rest != null && sequence > afterSequence)
+                {
+                    apply(op, fields, rest);
+                }
+                validLength += length + 8;
+                remaining -= length + 8;
+            }
+        }
+        return new long[] {validLength, sequence};
+    }
+    
+    private static void apply(byte op, DataInputStream in, Restaurant rest) throws IOException
+    {
+        try
+        {
+            switch (op)
+            {
+                case ADD:
+                    rest.addToMenu(in.readUTF(), CATEGORIES[in.readByte()], in.readInt(), in.readInt(), in.readDouble(), in.readDouble());
+                    break;
+                case REMOVE:
+                    rest.removeFromMenu(in.readUTF());
+                    break;
+                case ACTIVATE:
+                    rest.activate(in.readUTF());
+                    break;
+                case ACTIVATE_ALL:
+                    rest.activate();
+                    break;
+                case DISCONTINUE:
+                    rest.discontinue(in.readUTF());
+                    break;
+                case DISCONTINUE_ALL:
+                    rest.discontinue();
+                    break;
+                case UPDATE_PRICE:
+                    String name = in.readUTF();
+                    rest.updatePrice(in.readBoolean(), name, in.readInt());
+                    break;
+                case UPDATE_PRICE_ALL:
+                    rest.updatePrice(in.readBoolean(), in.readInt());
+                    break;
+                case ORDER:
+                    rest.order(in.readUTF(), in.readInt());
+                    break;
+                case BATCH:
+                    OrderTicket ticket = new OrderTicket();
+                    for (int lines = in.readInt(); lines > 0; lines--)
+                    {
+                        ticket.add(in.readUTF(), in.readInt());
+                    }
+                    rest.orderBatch(ticket);
+                    break;
+                case RATING:
+                    rest.addRating(in.readUTF(), in.readUTF(), in.readUTF(), in.readByte());
+                    break;
+                case SET_CALORIES:
+                    rest.setCalories(in.readUTF(), in.readInt());
+                    break;
+                case SET_SERVING_SIZE:
+                    rest.setServingSize(in.readUTF(), in.readInt());
+                    break;
+                default:
+                    throw new IOException("Unknown journal record type " + op);
+            }
+        }
+        catch (RestaurantException re)
+        {
+            throw new IOException("Journal replay failed: " + re.getMessage());
+        }
+    }
+}
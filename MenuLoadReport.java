@@ -0,0 +1,95 @@
+import java.util.ArrayList;
+import java.text.DecimalFormat;
+
+/**
+ * Summarizes a bulk menu load: how many lines were read, how many items made it onto the menu,
+ * how fast it went and what went wrong.  Only the first MAX_ERRORS_KEPT error messages are kept.
+ */
+public class MenuLoadReport
+{
+    public static final int MAX_ERRORS_KEPT = 100;
+    private static final DecimalFormat FMT = new DecimalFormat("#,##0");
+    
+    private String fileName;
+    private long startTime;
+    private long endTime;
+    private long numLines;
+    private int numItems;
+    private int numErrors;
+    private ArrayList<String> errors;
+    
+    public MenuLoadReport(String fileName)
+    {
+        this.fileName = fileName;
+        startTime = System.nanoTime();
+        errors = new ArrayList<String>();
+    }
+    
+    public void addLines(int count)
+    {
+        numLines += count;
+    }
+    
+    public void addError(String message)
+    {
+        numErrors++;
+        if (errors.size() < MAX_ERRORS_KEPT)
+        {
+            errors.add(message);
+        }
+    }
+    
+    public void finish(int numItems)
+    {
+        this.numItems = numItems;
+        endTime = System.nanoTime();
+    }
+    
+    public long getNumLines()
+    {
+        return numLines;
+    }
+    
+    public int getNumItems()
+    {
+        return numItems;
+    }
+    
+    public int getNumErrors()
+    {
+        return numErrors;
+    }
+    
+    public ArrayList<String> getErrors()
+    {
+        return errors;
+    }
+    
+    public double getSeconds()
+    {
+        return (endTime - startTime) / 1e9;
+    }
+    
+    public double getLinesPerSecond()
+    {
+        double seconds = getSeconds();
+        return seconds > 0 ? numLines / seconds : numLines;
+    }
+    
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder();
+        builder.append("Loaded " + FMT.format(numItems) + " items from " + FMT.format(numLines) + " lines of " + fileName +
+                       " in " + String.format("%.3f", getSeconds()) + " s (" + FMT.format(getLinesPerSecond()) + " lines/sec), " +
+                       FMT.format(numErrors) + " errors");
+        for (String error : errors)
+        {
+            builder.append("\r\n  " + error);
+        }
+        if (numErrors > errors.size())
+        {
+            builder.append("\r\n  ... " + FMT.format(numErrors - errors.size()) + " more");
+        }
+        return builder.toString();
+    }
+}
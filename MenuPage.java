@@ -0,0 +1,55 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a menu listing from Restaurant.getPage: the items on it and the token that
+ * fetches the page after it, which is null on the last page.
+ */
+public class MenuPage
+{
+    private ArrayList<MenuItem> items;
+    private String nextToken;
+
+    public MenuPage(ArrayList<MenuItem> items, String nextToken)
+    {
+        this.items = items;
+        this.nextToken = nextToken;
+    }
+
+    public List<MenuItem> getItems()
+    {
+        return Collections.unmodifiableList(items);
+    }
+
+    /**
+     * The names on the page in lower case, as Restaurant.getAllItemNames gives them.
+     */
+    public ArrayList<String> getNames()
+    {
+        ArrayList<String> result = new ArrayList<String>(items.size());
+        for (MenuItem item : items)
+        {
+            result.add(item.getName().toLowerCase());
+        }
+        return result;
+    }
+
+    public int size()
+    {
+        return items.size();
+    }
+
+    public boolean hasNextPage()
+    {
+        return nextToken != null;
+    }
+
+    /**
+     * Pass to Restaurant.getNextPage for the following page; null on the last page.
+     */
+    public String getNextToken()
+    {
+        return nextToken;
+    }
+}
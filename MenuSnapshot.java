@@ -0,0 +1,290 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import utilities.DateCodec;
+
+/**
+ * Reads and writes the binary snapshot format for a menu.  Layout (all values big endian):
+ * <pre>
+ *   header:    int MAGIC, int version, long journal sequence, int item count, int string count,
+ *              int reviewer count, long rating count
+ *   strings:   string count UTF item names
+ *   reviewers: reviewer count UTF names, the restaurant's ReviewerDictionary in id order
+ *   items:     item count fixed-width records (see ITEM_RECORD_BYTES)
+ *   ratings:   rating count reviewer ids, then rating count epoch days, then rating count scores
+ * </pre>
+ * Ratings are stored item by item in the same order as the item records, so each record's
+ * rating count is enough to find its ratings.  The header counts let the loader size
+ * every array before reading.  The journal sequence is the last MenuJournal record already
+ * reflected in the snapshot.  Money fields are long cents and rating dates are epoch days.
+ * Only files of the current VERSION are read.
+ */
+public class MenuSnapshot
+{
+    public static final int MAGIC = 0x524D4E55; // "RMNU"
+    public static final int VERSION = 5;
+    /** name id, category, serving size, calories, price, wholesale, # orders, total cost, total sales, flags, # ratings */
+    public static final int ITEM_RECORD_BYTES = 4 + 1 + 4 + 4 + 8 + 8 + 4 + 8 + 8 + 1 + 4;
+    /** magic, version, journal sequence, item, string and reviewer counts, rating count */
+    public static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 4 + 4 + 8;
+    
+    private static final int ACTIVE = 1;
+    private static final int RECOMMENDED = 2;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final MenuCategory[] CATEGORIES = MenuCategory.values();
+    
+    private String fileName;
+    private long journalSequence;
+    
+    public MenuSnapshot(String fileName)
+    {
+        this.fileName = fileName;
+    }
+    
+    public long getJournalSequence()
+    {
+        return journalSequence;
+    }
+    
+    public static void write(Collection<MenuItem> items, String fileName) throws IOException
+    {
+        write(items, fileName, 0);
+    }
+    
+    public static void write(Collection<MenuItem> items, String fileName, long journalSequence) throws IOException
+    {
+        write(items, new ReviewerDictionary(), fileName, journalSequence);
+    }
+    
+    /**
+     * Writes the reviewer dictionary once and each rating's reviewer as its id.  Ratings kept in
+     * another dictionary are interned into this one first, so it should belong to the items'
+     * restaurant.
+     */
+    public static void write(Collection<MenuItem> items, ReviewerDictionary reviewers, String fileName, long journalSequence)
+        throws IOException
+    {
+        // intern every item name once, in first-seen order
+        HashMap<String, Integer> ids = new HashMap<String, Integer>();
+        ArrayList<String> strings = new ArrayList<String>();
+        long numRatings = 0;
+        for (MenuItem item : items)
+        {
+            intern(item.getName(), ids, strings);
+            RatingStore ratings = item.getRatingStore();
+            if (ratings.getDictionary() != reviewers)
+            {
+                for (int i = 0; i < ratings.size(); i++)
+                {
+                    reviewers.intern(ratings.getReviewer(i));
+                }
+            }
+            numRatings += item.getNumRatings();
+        }
+        int numReviewers = reviewers.size();
+        
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName), BUFFER_SIZE)))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(journalSequence);
+            out.writeInt(items.size());
+            out.writeInt(strings.size());
+            out.writeInt(numReviewers);
+            out.writeLong(numRatings);
+            for (String s : strings)
+            {
+                out.writeUTF(s);
+            }
+            for (int i = 0; i < numReviewers; i++)
+            {
+                out.writeUTF(reviewers.getName(i));
+            }
+            
+            for (MenuItem item : items)
+            {
+                out.writeInt(ids.get(item.getName()));
+                out.writeByte(item.getCategory().ordinal());
+                out.writeInt(item.getServingSize());
+                out.writeInt(item.getCalories());
+                out.writeLong(item.getPriceCents());
+                out.writeLong(item.getWholesaleCostCents());
+                out.writeInt(item.getNumOrders());
+                out.writeLong(item.getTotalWholesaleCostCents());
+                out.writeLong(item.getTotalSalesCents());
+                out.writeByte((item.isActive() ? ACTIVE : 0) | (item.isRecommended() ? RECOMMENDED : 0));
+                out.writeInt(item.getNumRatings());
+            }
+            
+            for (MenuItem item : items)
+            {
+                RatingStore ratings = item.getRatingStore();
+                boolean sameIds = ratings.getDictionary() == reviewers;
+                for (int i = 0; i < ratings.size(); i++)
+                {
+                    out.writeInt(sameIds ? ratings.getReviewerId(i) : reviewers.getId(ratings.getReviewer(i)));
+                }
+            }
+            for (MenuItem item : items)
+            {
+                RatingStore ratings = item.getRatingStore();
+                for (int i = 0; i < ratings.size(); i++)
+                {
+                    out.writeInt(ratings.getEpochDay(i));
+                }
+            }
+            for (MenuItem item : items)
+            {
+                RatingStore ratings = item.getRatingStore();
+                for (int i = 0; i < ratings.size(); i++)
+                {
+                    out.writeByte(ratings.getRating(i));
+                }
+            }
+        }
+    }
+    
+    private static void intern(String s, HashMap<String, Integer> ids, ArrayList<String> strings)
+    {
+        if (!ids.containsKey(s))
+        {
+            ids.put(s, strings.size());
+            strings.add(s);
+        }
+    }
+    
+    /**
+     * Reads the items, keeping their ratings in the given dictionary.
+     */
+    public ArrayList<MenuItem> read(ReviewerDictionary dictionary) throws IOException, MenuItemException, RatingException
+    {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName), BUFFER_SIZE)))
+        {
+            if (in.readInt() != MAGIC)
+            {
+                throw new IOException(fileName + " is not a menu snapshot");
+            }
+            int version = in.readInt();
+            if (version != VERSION)
+            {
+                throw new IOException("Unsupported menu snapshot version " + version);
+            }
+            journalSequence = in.readLong();
+            int numItems = in.readInt();
+            int numStrings = in.readInt();
+            int numReviewers = in.readInt();
+            long numRatings = in.readLong();
+            // every count must fit in what is left of the file before anything is sized by it
+            if (numItems < 0 || numStrings < 0 || numReviewers < 0 || numRatings < 0 || numRatings > Integer.MAX_VALUE ||
+                2L * numStrings + 2L * numReviewers + (long) ITEM_RECORD_BYTES * numItems + 9 * numRatings >
+                new File(fileName).length() - HEADER_BYTES)
+            {
+                throw corrupt();
+            }
+            
+            String[] strings = new String[numStrings];
+            for (int i = 0; i < numStrings; i++)
+            {
+                strings[i] = in.readUTF();
+            }
+            String[] reviewerNames = new String[numReviewers];
+            for (int i = 0; i < numReviewers; i++)
+            {
+                reviewerNames[i] = in.readUTF();
+            }
+            
+            String[] names = new String[numItems];
+            MenuCategory[] categories = new MenuCategory[numItems];
+            int[] servingSizes = new int[numItems];
+            int[] calories = new int[numItems];
+            long[] prices = new long[numItems];
+            long[] wholesaleCosts = new long[numItems];
+            int[] numOrders = new int[numItems];
+            long[] totalCosts = new long[numItems];
+            long[] totalSales = new long[numItems];
+            byte[] flags = new byte[numItems];
+            int[] ratingCounts = new int[numItems];
+            int total = (int) numRatings;
+            long countedRatings = 0;
+            for (int i = 0; i < numItems; i++)
+            {
+                names[i] = strings[checkIndex(in.readInt(), numStrings)];
+                categories[i] = CATEGORIES[checkIndex(in.readByte(), CATEGORIES.length)];
+                servingSizes[i] = in.readInt();
+                calories[i] = in.readInt();
+                prices[i] = in.readLong();
+                wholesaleCosts[i] = in.readLong();
+                numOrders[i] = in.readInt();
+                totalCosts[i] = in.readLong();
+                totalSales[i] = in.readLong();
+                flags[i] = in.readByte();
+                ratingCounts[i] = checkIndex(in.readInt(), total + 1);
+                countedRatings += ratingCounts[i];
+            }
+            if (countedRatings != numRatings)
+            {
+                throw corrupt();
+            }
+            
+            int[] reviewerIds = new int[total];
+            int[] days = new int[total];
+            for (int i = 0; i < total; i++)
+            {
+                reviewerIds[i] = checkIndex(in.readInt(), reviewerNames.length);
+            }
+            for (int i = 0; i < total; i++)
+            {
+                days[i] = in.readInt();
+                if (days[i] == DateCodec.INVALID)
+                {
+                    throw new RatingException("Invalid review information");
+                }
+            }
+            byte[] scores = new byte[total];
+            in.readFully(scores);
+            
+            // each reviewer name is looked up in the dictionary once
+            int[] dictionaryIds = new int[reviewerNames.length];
+            Arrays.fill(dictionaryIds, -1);
+            ArrayList<MenuItem> items = new ArrayList<MenuItem>(numItems);
+            int next = 0;
+            for (int i = 0; i < numItems; i++)
+            {
+                RatingStore ratings = new RatingStore(dictionary, ratingCounts[i]);
+                for (int j = 0; j < ratingCounts[i]; j++, next++)
+                {
+                    int id = reviewerIds[next];
+                    if (dictionaryIds[id] < 0)
+                    {
+                        dictionaryIds[id] = dictionary.intern(reviewerNames[id]);
+                    }
+                    if (scores[next] < 1 || scores[next] > Rating.MAX_RATING)
+                    {
+                        throw new RatingException("Invalid review information");
+                    }
+                    ratings.add(dictionaryIds[id], days[next], scores[next]);
+                }
+                items.add(new MenuItem(names[i], categories[i], servingSizes[i], calories[i], prices[i], wholesaleCosts[i], numOrders[i],
+                                       totalCosts[i], totalSales[i], (flags[i] & ACTIVE) != 0, (flags[i] & RECOMMENDED) != 0, ratings));
+            }
+            return items;
+        }
+    }
+    
+    // an index read from the file, checked against the table it points into
+    private int checkIndex(int index, int length) throws IOException
+    {
+        if (index < 0 || index >= length)
+        {
+            throw corrupt();
+        }
+        return index;
+    }
+    
+    private IOException corrupt()
+    {
+        return new IOException("corrupt snapshot " + fileName);
+    }
+}
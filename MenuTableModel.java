@@ -0,0 +1,155 @@
+import javax.swing.table.AbstractTableModel;
+import utilities.Money;
+
+/**
+ *  MenuTableModel shows the menu as table rows for RestaurantGUI, in the order they were last
+ *  sorted. Each row is an immutable Row copied from its MenuItem on the thread that owns the
+ *  restaurant, so the event thread never reads an item while it is being changed. A JTable
+ *  paints only the rows in view, so a large menu costs one small Row each and a repaint costs
+ *  only the rows on screen.
+ */
+public class MenuTableModel extends AbstractTableModel {
+
+   private static final long serialVersionUID = 1L;
+
+   private static final String[] COLUMNS = {"Name", "Category", "Price", "Profit", "Orders", "Ratings", "Avg Rating", "Active"};
+   // the Restaurant sort field behind each column, or 0 where there is no fast path to sort by
+   private static final int[] SORT_FIELDS = {1, 0, 0, 2, 0, 0, 3, 0};
+
+   private Row[] rows = new Row[0];
+   private int sortField;
+
+   /**
+    * The values of one item as they were when the row was made.
+    */
+   public static final class Row {
+      private final String name;
+      private final int nameHash; // of the lower-case name, so finding a row rarely compares names
+      private final MenuCategory category;
+      private final long priceCents;
+      private final long profitCents;
+      private final int numOrders;
+      private final int numRatings;
+      private final double averageRating;
+      private final boolean active;
+
+      /**
+       * Copies the item's values. Call it on the thread that changes the item.
+       * @param item The item to copy.
+       */
+      public Row(MenuItem item) {
+         name = item.getName();
+         nameHash = name.toLowerCase().hashCode();
+         category = item.getCategory();
+         priceCents = item.getPriceCents();
+         profitCents = item.getProfitCents();
+         numOrders = item.getNumOrders();
+         numRatings = item.getNumRatings();
+         averageRating = item.getAverageRating();
+         active = item.isActive();
+      }
+   }
+
+   /**
+    * Copies every item into a row, in the same order.
+    * @param items The items to copy.
+    * @return The rows.
+    */
+   public static Row[] toRows(MenuItem[] items) {
+      Row[] result = new Row[items.length];
+      for (int i = 0; i < items.length; i++) {
+         result[i] = new Row(items[i]);
+      }
+      return result;
+   }
+
+   /**
+    * Replaces every row. Call it on the event thread.
+    * @param rows The rows in the order they are to be shown.
+    * @param sortField The Restaurant sort field they are in order of.
+    * @return None.
+    */
+   public void setRows(Row[] rows, int sortField) {
+      this.rows = rows;
+      this.sortField = sortField;
+      fireTableDataChanged();
+   }
+
+   /**
+    * Replaces the row of the item the new row was copied from, wherever it is in the table.
+    * Call it on the event thread.
+    * @param row The item's values after it changed.
+    * @return None.
+    */
+   public void rowChanged(Row row) {
+      for (int i = 0; i < rows.length; i++) {
+         if (rows[i].nameHash == row.nameHash && rows[i].name.equalsIgnoreCase(row.name)) {
+            rows[i] = row;
+            fireTableRowsUpdated(i, i);
+         }
+      }
+   }
+
+   /**
+    * The Restaurant sort field a column sorts by.
+    * @param column Column in the model.
+    * @return The field, or 0 if the column cannot be sorted.
+    */
+   public int getSortField(int column) {
+      return column >= 0 && column < SORT_FIELDS.length ? SORT_FIELDS[column] : 0;
+   }
+
+   public int getRowCount() {
+      return rows.length;
+   }
+
+   public int getColumnCount() {
+      return COLUMNS.length;
+   }
+
+   public String getColumnName(int column) {
+      return sortField != 0 && SORT_FIELDS[column] == sortField ? COLUMNS[column] + " *" : COLUMNS[column];
+   }
+
+   public Class<?> getColumnClass(int column) {
+      Class<?> result = String.class;
+      if (column == 4 || column == 5) {
+         result = Integer.class;
+      } else if (column == 7) {
+         result = Boolean.class;
+      }
+      return result;
+   }
+
+   public Object getValueAt(int row, int column) {
+      Row values = rows[row];
+      Object result;
+      switch (column) {
+         case 0:
+            result = values.name;
+            break;
+         case 1:
+            result = values.category;
+            break;
+         case 2:
+            result = Money.format(values.priceCents);
+            break;
+         case 3:
+            result = Money.format(values.profitCents);
+            break;
+         case 4:
+            result = values.numOrders;
+            break;
+         case 5:
+            result = values.numRatings;
+            break;
+         case 6:
+            result = String.format("%.2f", values.averageRating);
+            break;
+         default:
+            result = values.active;
+            break;
+      }
+      return result;
+   }
+}
@@ -0,0 +1,91 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * One point-of-sale ticket: a list of item names and quantities that Restaurant.orderBatch
+ * applies all-or-nothing.  The text form used in ticket files is one ticket per line,
+ * written as itemName:quantity pairs separated by commas, e.g. "Steak:2,Salad:1".
+ */
+public class OrderTicket
+{
+    /** The line was ordered */
+    public static final int ORDERED = 0;
+    /** No item on the menu has the line's name */
+    public static final int NOT_FOUND = 1;
+    /** The line's item is discontinued */
+    public static final int INACTIVE = 2;
+    /** The line's quantity is not positive */
+    public static final int INVALID_QUANTITY = 3;
+    /** The line was valid but not ordered because another line on the ticket failed */
+    public static final int NOT_APPLIED = 4;
+    
+    private static final String[] DESCRIPTIONS = {"ordered", "not on menu", "discontinued", "invalid quantity", "not applied"};
+    
+    private ArrayList<String> itemNames;
+    private int[] quantities;
+    
+    public OrderTicket()
+    {
+        itemNames = new ArrayList<String>();
+        quantities = new int[4];
+    }
+    
+    public void add(String itemName, int quantity)
+    {
+        if (itemNames.size() == quantities.length)
+        {
+            quantities = Arrays.copyOf(quantities, quantities.length * 2);
+        }
+        quantities[itemNames.size()] = quantity;
+        itemNames.add(itemName);
+    }
+    
+    public int size()
+    {
+        return itemNames.size();
+    }
+    
+    public String getItemName(int line)
+    {
+        return itemNames.get(line);
+    }
+    
+    public int getQuantity(int line)
+    {
+        return quantities[line];
+    }
+    
+    /**
+     * Parses the text form of a ticket.  Throws NumberFormatException for a quantity that is not
+     * a number and IllegalArgumentException for a pair without a colon.
+     */
+    public static OrderTicket parse(String line)
+    {
+        OrderTicket ticket = new OrderTicket();
+        for (String pair : line.split(","))
+        {
+            int colon = pair.lastIndexOf(':');
+            if (colon < 0)
+            {
+                throw new IllegalArgumentException("Ticket line \"" + pair + "\" needs itemName:quantity");
+            }
+            ticket.add(pair.substring(0, colon).trim(), Integer.parseInt(pair.substring(colon + 1).trim()));
+        }
+        return ticket;
+    }
+    
+    public static String describe(int status)
+    {
+        return status >= 0 && status < DESCRIPTIONS.length ? DESCRIPTIONS[status] : "unknown";
+    }
+    
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < itemNames.size(); i++)
+        {
+            builder.append((i > 0 ? "," : "") + itemNames.get(i) + ":" + quantities[i]);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,117 @@
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import javax.swing.JTextArea;
+import javax.swing.Timer;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+
+/**
+ *  OutputConsole is a read-only text area that holds only its newest lines, for output that
+ *  keeps coming for as long as a program runs. Text passed to append is queued, and a timer
+ *  moves everything queued into the document once a frame, so any number of appends between
+ *  frames costs one document change, one relayout and one scroll adjustment. After each
+ *  update the oldest lines are dropped until at most maxLines lines and maxChars characters
+ *  remain, which keeps memory and relayout time flat however long the session runs.
+ *
+ *  append may be called from any thread.
+ */
+public class OutputConsole extends JTextArea {
+
+   private static final long serialVersionUID = 1L;
+
+   /** Milliseconds between document updates, about one a frame */
+   public static final int FLUSH_DELAY = 33;
+
+   private int maxLines;
+   private int maxChars;
+   private StringBuilder pending = new StringBuilder(); // guarded by itself
+   private Timer flushTimer;
+
+   /**
+    * Creates the console.
+    * @param rows Rows shown.
+    * @param columns Columns shown.
+    * @param maxLines Most lines kept.
+    * @param maxChars Most characters kept.
+    */
+   public OutputConsole(int rows, int columns, int maxLines, int maxChars) {
+      super(rows, columns);
+      if (maxLines < 1 || maxChars < 1) {
+         throw new IllegalArgumentException("The console must hold at least one line and one character");
+      }
+      this.maxLines = maxLines;
+      this.maxChars = maxChars;
+      setEditable(false);
+      flushTimer = new Timer(FLUSH_DELAY, new ActionListener() {
+         public void actionPerformed(ActionEvent e) {
+            flush();
+         }
+      });
+      flushTimer.start();
+   }
+
+   /**
+    * Queues text to be shown at the next update.
+    * @param text Text to be added at the end.
+    * @return None.
+    */
+   public void append(String text) {
+      synchronized (pending) {
+         pending.append(text);
+         if (pending.length() > maxChars) {
+            // the older part could never be shown, so it is dropped before it reaches the document
+            pending.delete(0, pending.length() - maxChars);
+         }
+      }
+   }
+
+   // on the event thread: one insert for everything queued since the last frame, then a trim
+   private void flush() {
+      String text = null;
+      synchronized (pending) {
+         if (pending.length() > 0) {
+            text = pending.toString();
+            pending.setLength(0);
+         }
+      }
+      if (text != null) {
+         super.append(lastLines(text));
+         trim();
+      }
+   }
+
+   // the end of the text that could still be shown after the trim, so lines that would be
+   // dropped straight away are never laid out
+   private String lastLines(String text) {
+      int start = text.length();
+      for (int lines = 0; lines < maxLines && start > 0; lines++) {
+         start = text.lastIndexOf('\n', start - 1);
+         start = start < 0 ? 0 : start;
+      }
+      return start > 0 ? text.substring(start + 1) : text;
+   }
+
+   // drops whole lines from the start until the line and character limits are met
+   private void trim() {
+      Document doc = getDocument();
+      Element root = doc.getDefaultRootElement();
+      int cut = 0;
+      if (root.getElementCount() > maxLines) {
+         cut = root.getElement(root.getElementCount() - maxLines - 1).getEndOffset();
+      }
+      if (doc.getLength() - cut > maxChars) {
+         // cut after the line holding the first character to go, or inside it if it is the last
+         int line = root.getElementIndex(doc.getLength() - maxChars);
+         cut = line < root.getElementCount() - 1 ? root.getElement(line).getEndOffset() : doc.getLength() - maxChars;
+      }
+      cut = Math.min(cut, doc.getLength());
+      if (cut > 0) {
+         try {
+            doc.remove(0, cut);
+         } catch (BadLocationException ble) {
+            // the range is inside the document, so this cannot happen
+         }
+      }
+   }
+}
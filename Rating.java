@@ -1,11 +1,22 @@
-import static utilities.Validation.*;
+import java.io.IOException;
+import java.io.ObjectStreamField;
+import utilities.DateCodec;
 public class Rating implements Statable, java.io.Serializable
 {
-    private String date;
+    private int day; // epoch day, see DateCodec
     private String reviewer;
     private int rating;
+    
+    private static final long serialVersionUID = -4806808229277881860L;
     public static final int MAX_RATING = 5;
     
+    // object files store the date as its "mm/dd/yyyy" String
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("date", String.class),
+        new ObjectStreamField("reviewer", String.class),
+        new ObjectStreamField("rating", int.class)
+    };
+    
     public Rating(int rating) throws RatingException
     {
         this("anonymous", "99/01/01", rating);
@@ -13,15 +24,60 @@ public class Rating implements Statable, java.io.Serializable
     
     public Rating(String reviewer, String date, int rating) throws RatingException
     {
-        if (reviewer == null || reviewer.equals("") || isDateInvalid(date) || rating < 1 || rating > MAX_RATING)
+        this(reviewer, DateCodec.parse(date), rating);
+    }
+    
+    public Rating(String reviewer, int epochDay, int rating) throws RatingException
+    {
+        if (isInvalid(reviewer, epochDay, rating))
         {
             throw new RatingException("Invalid review information");
         }
         this.reviewer = reviewer;
-        this.date = date;
+        this.day = epochDay;
         this.rating = rating;
     }
     
+    private Rating()
+    {
+    }
+    
+    // ratings read back out of a RatingStore only hold checked values
+    static Rating unchecked(String reviewer, int epochDay, int rating)
+    {
+        Rating result = new Rating();
+        result.reviewer = reviewer;
+        result.day = epochDay;
+        result.rating = rating;
+        return result;
+    }
+    
+    static boolean isInvalid(String reviewer, int epochDay, int rating)
+    {
+        return reviewer == null || reviewer.equals("") || epochDay == DateCodec.INVALID || rating < 1 || rating > MAX_RATING;
+    }
+    
+    private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException
+    {
+        java.io.ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("date", getDate());
+        fields.put("reviewer", reviewer);
+        fields.put("rating", rating);
+        out.writeFields();
+    }
+    
+    private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException
+    {
+        java.io.ObjectInputStream.GetField fields = in.readFields();
+        reviewer = (String) fields.get("reviewer", null);
+        rating = fields.get("rating", 0);
+        day = DateCodec.parse((String) fields.get("date", null));
+        if (isInvalid(reviewer, day, rating))
+        {
+            throw new java.io.InvalidObjectException("Invalid review information");
+        }
+    }
+    
     public String getReviewer()
     {
         return reviewer;
@@ -29,7 +85,12 @@ public class Rating implements Statable, java.io.Serializable
     
     public String getDate()
     {
-        return date;
+        return DateCodec.format(day);
+    }
+    
+    public int getEpochDay()
+    {
+        return day;
     }
     
     public int getRating()
@@ -39,11 +100,21 @@ public class Rating implements Statable, java.io.Serializable
     
     public String toString()
     {
-        return "Reviewer: " + reviewer + " Date: " + date + " Rating: " + rating;
+        return "Reviewer: " + reviewer + " Date: " + getDate() + " Rating: " + rating;
     }
     
     public String getState()
     {
-        return reviewer + ":" + date + ":" + rating;
+        return reviewer + ":" + getDate() + ":" + rating;
+    }
+    
+    public void writeState(Appendable out) throws IOException
+    {
+        out.append(reviewer).append(':').append(getDate()).append(':').append(String.valueOf(rating));
+    }
+    
+    public void writeTo(Appendable out) throws IOException
+    {
+        out.append("Reviewer: ").append(reviewer).append(" Date: ").append(getDate()).append(" Rating: ").append(String.valueOf(rating));
     }
 }
@@ -0,0 +1,132 @@
+import java.util.Arrays;
+
+/**
+ * Counts of ratings by score, from 1 to Rating.MAX_RATING.  Every statistic reads only the
+ * MAX_RATING counters, so the cost does not depend on how many ratings were counted.
+ */
+public class RatingHistogram
+{
+    private long[] counts = new long[Rating.MAX_RATING + 1];
+    private long total;
+    private long sum;
+
+    public void add(int rating)
+    {
+        counts[rating]++;
+        total++;
+        sum += rating;
+    }
+
+    /**
+     * Adds (sign 1) or takes back out (sign -1) every count in the other histogram.
+     */
+    public void merge(RatingHistogram other, int sign)
+    {
+        for (int score = 1; score <= Rating.MAX_RATING; score++)
+        {
+            counts[score] += sign * other.counts[score];
+        }
+        total += sign * other.total;
+        sum += sign * other.sum;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(counts, 0);
+        total = 0;
+        sum = 0;
+    }
+
+    public long getCount(int rating)
+    {
+        return rating >= 1 && rating <= Rating.MAX_RATING ? counts[rating] : 0;
+    }
+
+    public long getTotal()
+    {
+        return total;
+    }
+
+    public long getSum()
+    {
+        return sum;
+    }
+
+    public double getAverage()
+    {
+        return total == 0 ? 0 : (double) sum / total;
+    }
+
+    /**
+     * The middle rating, or the mean of the two middle ratings when the count is even; 0 if empty.
+     */
+    public double getMedian()
+    {
+        double result = 0;
+        if (total > 0)
+        {
+            result = (ratingAt((total - 1) / 2) + ratingAt(total / 2)) / 2.0;
+        }
+        return result;
+    }
+
+    // the score of the rating at the given 0-based rank in sorted order
+    private int ratingAt(long rank)
+    {
+        long seen = 0;
+        int score = 1;
+        while (seen + counts[score] <= rank)
+        {
+            seen += counts[score];
+            score++;
+        }
+        return score;
+    }
+
+    /**
+     * The most common rating, the higher one on a tie; 0 if empty.
+     */
+    public int getMode()
+    {
+        int result = 0;
+        for (int score = 1; score <= Rating.MAX_RATING; score++)
+        {
+            if (counts[score] > 0 && counts[score] >= counts[result])
+            {
+                result = score;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Fraction (0 to 1) of the ratings that have the given score.
+     */
+    public double getShare(int rating)
+    {
+        return total == 0 ? 0 : (double) getCount(rating) / total;
+    }
+
+    /**
+     * The average pulled toward priorMean as if priorWeight extra ratings of priorMean had been
+     * given, so items with only a few ratings do not rank above well-reviewed ones.
+     */
+    public double getBayesianAverage(double priorMean, double priorWeight)
+    {
+        return total + priorWeight == 0 ? 0 : (priorWeight * priorMean + sum) / (priorWeight + total);
+    }
+
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder();
+        for (int score = Rating.MAX_RATING; score >= 1; score--)
+        {
+            builder.append(score).append(": ").append(counts[score]);
+            if (score > 1)
+            {
+                builder.append("  ");
+            }
+        }
+        return builder.toString();
+    }
+}
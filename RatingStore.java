@@ -0,0 +1,266 @@
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import utilities.DateCodec;
+
+/**
+ * The ratings of one menu item, stored column by column in primitive arrays: a reviewer id into
+ * a ReviewerDictionary, the date as an epoch day and the score as a byte.  That is 9 bytes a
+ * rating plus growth slack, against a Rating object with its two Strings.  Rating objects are
+ * only created when asked for through get or asList.
+ */
+public class RatingStore
+{
+    private static final int INITIAL_CAPACITY = 4;
+
+    private ReviewerDictionary dictionary;
+    private int[] reviewers;
+    private int[] days;
+    private byte[] scores;
+    private int size;
+    private RatingHistogram histogram = new RatingHistogram();
+    private RatingTimeline timeline; // built on first use, then kept up to date
+
+    public RatingStore(ReviewerDictionary dictionary, int capacity)
+    {
+        this.dictionary = dictionary;
+        reviewers = new int[capacity];
+        days = new int[capacity];
+        scores = new byte[capacity];
+    }
+
+    public RatingStore(ReviewerDictionary dictionary, List<Rating> ratings)
+    {
+        this(dictionary, ratings.size());
+        for (Rating r : ratings)
+        {
+            add(r);
+        }
+    }
+
+    /**
+     * Checks the values the same way the Rating constructor does before storing them.
+     */
+    public void add(String reviewer, String date, int rating) throws RatingException
+    {
+        add(reviewer, DateCodec.parse(date), rating);
+    }
+
+    public void add(String reviewer, int epochDay, int rating) throws RatingException
+    {
+        if (Rating.isInvalid(reviewer, epochDay, rating))
+        {
+            throw new RatingException("Invalid review information");
+        }
+        add(dictionary.intern(reviewer), epochDay, rating);
+    }
+
+    public void add(Rating r)
+    {
+        add(dictionary.intern(r.getReviewer()), r.getEpochDay(), r.getRating());
+    }
+
+    /**
+     * Stores already checked values, such as ones read back from a snapshot.
+     */
+    public void add(int reviewerId, int epochDay, int rating)
+    {
+        if (size == scores.length)
+        {
+            int capacity = Math.max(INITIAL_CAPACITY, size + (size >> 1));
+            reviewers = Arrays.copyOf(reviewers, capacity);
+            days = Arrays.copyOf(days, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+        }
+        reviewers[size] = reviewerId;
+        days[size] = epochDay;
+        scores[size] = (byte) rating;
+        size++;
+        histogram.add(rating);
+        if (timeline != null)
+        {
+            timeline.add(epochDay, rating);
+        }
+    }
+
+    /**
+     * Moves the store over to another dictionary, translating every reviewer id.
+     */
+    public void rebind(ReviewerDictionary target)
+    {
+        if (target != dictionary)
+        {
+            for (int i = 0; i < size; i++)
+            {
+                reviewers[i] = target.intern(dictionary.getName(reviewers[i]));
+            }
+            dictionary = target;
+        }
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public ReviewerDictionary getDictionary()
+    {
+        return dictionary;
+    }
+
+    public int getReviewerId(int index)
+    {
+        checkIndex(index);
+        return reviewers[index];
+    }
+
+    public String getReviewer(int index)
+    {
+        return dictionary.getName(getReviewerId(index));
+    }
+
+    public int getEpochDay(int index)
+    {
+        checkIndex(index);
+        return days[index];
+    }
+
+    public String getDate(int index)
+    {
+        return DateCodec.format(getEpochDay(index));
+    }
+
+    public int getRating(int index)
+    {
+        checkIndex(index);
+        return scores[index];
+    }
+
+    public Rating get(int index)
+    {
+        return Rating.unchecked(getReviewer(index), getEpochDay(index), getRating(index));
+    }
+
+    public long sum()
+    {
+        return histogram.getSum();
+    }
+
+    /**
+     * Counts by score, kept up to date as ratings are added.
+     */
+    public RatingHistogram getHistogram()
+    {
+        return histogram;
+    }
+
+    /**
+     * Counts and averages by date window.  Built from the stored ratings the first time it is
+     * asked for and updated by every add after that.
+     */
+    public RatingTimeline getTimeline()
+    {
+        if (timeline == null)
+        {
+            RatingTimeline result = new RatingTimeline();
+            result.addAll(this, 1);
+            timeline = result;
+        }
+        return timeline;
+    }
+
+    /**
+     * Indexes of the ratings dated fromDay to toDay (inclusive epoch days), oldest first; ratings
+     * on the same day keep the order they were added in.
+     */
+    public int[] indexesByDate(int fromDay, int toDay)
+    {
+        // day in the high half and index in the low half, so sorting the longs sorts by date
+        long[] keys = new long[size];
+        int count = 0;
+        for (int i = 0; i < size; i++)
+        {
+            if (days[i] >= fromDay && days[i] <= toDay)
+            {
+                keys[count++] = ((long) days[i] << 32) | i;
+            }
+        }
+        Arrays.sort(keys, 0, count);
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++)
+        {
+            result[i] = (int) keys[i];
+        }
+        return result;
+    }
+
+    /**
+     * Read-only view that creates each Rating as it is fetched.
+     */
+    public List<Rating> asList()
+    {
+        return new AbstractList<Rating>()
+        {
+            public Rating get(int index)
+            {
+                return RatingStore.this.get(index);
+            }
+
+            public int size()
+            {
+                return size;
+            }
+        };
+    }
+
+    public ArrayList<Rating> toArrayList()
+    {
+        ArrayList<Rating> result = new ArrayList<Rating>(size);
+        for (int i = 0; i < size; i++)
+        {
+            result.add(get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Appends the rating in the same form as Rating.getState.
+     */
+    public void appendState(StringBuilder builder, int index)
+    {
+        checkIndex(index);
+        builder.append(dictionary.getName(reviewers[index])).append(':');
+        DateCodec.append(builder, days[index]);
+        builder.append(':').append(scores[index]);
+    }
+
+    /**
+     * Appends the rating in the same form as Rating.toString.
+     */
+    public void appendReview(StringBuilder builder, int index)
+    {
+        checkIndex(index);
+        builder.append("Reviewer: ").append(dictionary.getName(reviewers[index])).append(" Date: ");
+        DateCodec.append(builder, days[index]);
+        builder.append(" Rating: ").append(scores[index]);
+    }
+
+    public void trimToSize()
+    {
+        if (size < scores.length)
+        {
+            reviewers = Arrays.copyOf(reviewers, size);
+            days = Arrays.copyOf(days, size);
+            scores = Arrays.copyOf(scores, size);
+        }
+    }
+
+    private void checkIndex(int index)
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
@@ -0,0 +1,413 @@
+import java.util.Arrays;
+import utilities.DateCodec;
+
+/**
+ * Rating counts and score sums bucketed by day and rolled up by calendar month, so the count or
+ * average over any window of days reads whole months from the month buckets and only the ragged
+ * ends from the day buckets, never the ratings themselves.  Only days and months that have
+ * ratings take a bucket, and the month rollup starts once there are enough rated days for
+ * summing the day buckets alone to cost more than it saves.
+ */
+public class RatingTimeline
+{
+    private static final int ROLLUP_MIN = 256;
+
+    private Buckets days = new Buckets();
+    private Buckets months; // null until there are ROLLUP_MIN rated days
+
+    public void add(int epochDay, int rating)
+    {
+        add(epochDay, 1, rating);
+    }
+
+    /**
+     * Adds (sign 1) or takes back out (sign -1) every rating in the store.  While the buckets
+     * are sparse the ratings are sorted by day first so each bucket is looked up once.
+     */
+    public void addAll(RatingStore ratings, int sign)
+    {
+        int size = ratings.size();
+        if (days.isDense())
+        {
+            for (int i = 0; i < size; i++)
+            {
+                add(ratings.getEpochDay(i), sign, sign * ratings.getRating(i));
+            }
+        }
+        else
+        {
+            boolean isNew = days.size() == 0;
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++)
+            {
+                keys[i] = ((long) ratings.getEpochDay(i) << 32) | ratings.getRating(i);
+            }
+            Arrays.sort(keys);
+            int i = 0;
+            while (i < size)
+            {
+                int day = (int) (keys[i] >> 32);
+                int count = 0;
+                int sum = 0;
+                for (; i < size && (int) (keys[i] >> 32) == day; i++)
+                {
+                    count++;
+                    sum += (int) keys[i];
+                }
+                add(day, sign * count, sign * sum);
+            }
+            if (isNew)
+            {
+                days.trimToSize();
+            }
+        }
+    }
+
+    private void add(int epochDay, int count, int sum)
+    {
+        days.add(epochDay, count, sum);
+        if (months != null)
+        {
+            months.add(DateCodec.toMonth(epochDay), count, sum);
+        }
+        else if (days.size() >= ROLLUP_MIN)
+        {
+            months = rollup();
+        }
+    }
+
+    // the day buckets summed by month
+    private Buckets rollup()
+    {
+        Buckets result = new Buckets();
+        for (int day : days.keys())
+        {
+            result.add(DateCodec.toMonth(day), (int) days.total(day, day, false), (int) days.total(day, day, true));
+        }
+        return result;
+    }
+
+    private Buckets byMonth()
+    {
+        return months != null ? months : rollup();
+    }
+
+    public void clear()
+    {
+        days = new Buckets();
+        months = null;
+    }
+
+    /**
+     * Ratings dated fromDay to toDay (inclusive epoch days).
+     */
+    public int getCount(int fromDay, int toDay)
+    {
+        return (int) total(fromDay, toDay, false);
+    }
+
+    public long getSum(int fromDay, int toDay)
+    {
+        return total(fromDay, toDay, true);
+    }
+
+    /**
+     * Average of the ratings dated fromDay to toDay (inclusive), or 0 if there are none.
+     */
+    public double getAverage(int fromDay, int toDay)
+    {
+        int count = getCount(fromDay, toDay);
+        return count == 0 ? 0 : (double) getSum(fromDay, toDay) / count;
+    }
+
+    public int getCount()
+    {
+        return isEmpty() ? 0 : getCount(getFirstDay(), getLastDay());
+    }
+
+    public boolean isEmpty()
+    {
+        return days.size() == 0;
+    }
+
+    /**
+     * Epoch day of the oldest rating, or DateCodec.INVALID if there are none.
+     */
+    public int getFirstDay()
+    {
+        return isEmpty() ? DateCodec.INVALID : days.firstKey();
+    }
+
+    /**
+     * Epoch day of the newest rating, or DateCodec.INVALID if there are none.
+     */
+    public int getLastDay()
+    {
+        return isEmpty() ? DateCodec.INVALID : days.lastKey();
+    }
+
+    /**
+     * The months (as DateCodec.toMonth numbers) that have ratings, oldest first.
+     */
+    public int[] getMonths()
+    {
+        return byMonth().keys();
+    }
+
+    private long total(int fromDay, int toDay, boolean sums)
+    {
+        // clamping to the rated days keeps the month arithmetic inside the calendar's range
+        fromDay = Math.max(fromDay, getFirstDay());
+        toDay = Math.min(toDay, getLastDay());
+        if (isEmpty() || fromDay > toDay)
+        {
+            return 0;
+        }
+        if (months == null)
+        {
+            return days.total(fromDay, toDay, sums);
+        }
+        // the months lying wholly inside the window come from the month buckets
+        int firstMonth = DateCodec.toMonth(fromDay);
+        int lastMonth = DateCodec.toMonth(toDay);
+        if (DateCodec.firstDayOfMonth(firstMonth) < fromDay)
+        {
+            firstMonth++;
+        }
+        if (DateCodec.lastDayOfMonth(lastMonth) > toDay)
+        {
+            lastMonth--;
+        }
+        if (firstMonth > lastMonth)
+        {
+            return days.total(fromDay, toDay, sums);
+        }
+        return days.total(fromDay, DateCodec.firstDayOfMonth(firstMonth) - 1, sums)
+               + months.total(firstMonth, lastMonth, sums)
+               + days.total(DateCodec.lastDayOfMonth(lastMonth) + 1, toDay, sums);
+    }
+
+    // a count and sum per key, kept sparse (sorted keys) while few keys are used and dense
+    // (indexed by key - base) once most keys in the span are, as for a busy restaurant's days
+    private static class Buckets
+    {
+        private static final int DENSE_MIN = 64;
+        private static final int DENSE_FACTOR = 4;
+
+        private boolean dense;
+        private int base;
+        private int[] keys = new int[0];
+        private int[] counts = new int[0];
+        private int[] sums = new int[0];
+        private int size; // keys with a nonzero count
+
+        void add(int key, int count, int sum)
+        {
+            if (dense && (key < base || key >= base + counts.length) && !growDense(key))
+            {
+                toSparse();
+            }
+            if (dense)
+            {
+                int i = key - base;
+                boolean wasEmpty = counts[i] == 0;
+                counts[i] += count;
+                sums[i] += sum;
+                if (wasEmpty != (counts[i] == 0))
+                {
+                    size += wasEmpty ? 1 : -1;
+                }
+            }
+            else
+            {
+                addSparse(key, count, sum);
+                if (size >= DENSE_MIN && keys[size - 1] - keys[0] < DENSE_FACTOR * size)
+                {
+                    toDense();
+                }
+            }
+        }
+
+        private void addSparse(int key, int count, int sum)
+        {
+            int i = Arrays.binarySearch(keys, 0, size, key);
+            if (i >= 0)
+            {
+                counts[i] += count;
+                sums[i] += sum;
+                if (counts[i] == 0)
+                {
+                    size--;
+                    System.arraycopy(keys, i + 1, keys, i, size - i);
+                    System.arraycopy(counts, i + 1, counts, i, size - i);
+                    System.arraycopy(sums, i + 1, sums, i, size - i);
+                }
+            }
+            else if (count != 0)
+            {
+                i = -i - 1;
+                if (size == keys.length)
+                {
+                    int capacity = Math.max(4, size + (size >> 1));
+                    keys = Arrays.copyOf(keys, capacity);
+                    counts = Arrays.copyOf(counts, capacity);
+                    sums = Arrays.copyOf(sums, capacity);
+                }
+                System.arraycopy(keys, i, keys, i + 1, size - i);
+                System.arraycopy(counts, i, counts, i + 1, size - i);
+                System.arraycopy(sums, i, sums, i + 1, size - i);
+                keys[i] = key;
+                counts[i] = count;
+                sums[i] = sum;
+                size++;
+            }
+        }
+
+        // widens the dense range to take the key, or returns false if it would be mostly empty
+        private boolean growDense(int key)
+        {
+            int slack = counts.length >> 1;
+            int from = key < base ? key - slack : base;
+            int to = key >= base + counts.length ? key + slack : base + counts.length - 1;
+            if ((long) to - from + 1 > (long) DENSE_FACTOR * (size + 1) + DENSE_MIN)
+            {
+                return false;
+            }
+            int[] newCounts = new int[to - from + 1];
+            int[] newSums = new int[to - from + 1];
+            System.arraycopy(counts, 0, newCounts, base - from, counts.length);
+            System.arraycopy(sums, 0, newSums, base - from, sums.length);
+            counts = newCounts;
+            sums = newSums;
+            base = from;
+            return true;
+        }
+
+        private void toDense()
+        {
+            int from = keys[0];
+            int[] newCounts = new int[keys[size - 1] - from + 1];
+            int[] newSums = new int[newCounts.length];
+            for (int i = 0; i < size; i++)
+            {
+                newCounts[keys[i] - from] = counts[i];
+                newSums[keys[i] - from] = sums[i];
+            }
+            base = from;
+            counts = newCounts;
+            sums = newSums;
+            keys = null;
+            dense = true;
+        }
+
+        private void toSparse()
+        {
+            int[] newKeys = new int[size];
+            int[] newCounts = new int[size];
+            int[] newSums = new int[size];
+            int n = 0;
+            for (int i = 0; i < counts.length; i++)
+            {
+                if (counts[i] != 0)
+                {
+                    newKeys[n] = base + i;
+                    newCounts[n] = counts[i];
+                    newSums[n] = sums[i];
+                    n++;
+                }
+            }
+            keys = newKeys;
+            counts = newCounts;
+            sums = newSums;
+            dense = false;
+        }
+
+        int size()
+        {
+            return size;
+        }
+
+        boolean isDense()
+        {
+            return dense;
+        }
+
+        void trimToSize()
+        {
+            if (!dense && size < keys.length)
+            {
+                keys = Arrays.copyOf(keys, size);
+                counts = Arrays.copyOf(counts, size);
+                sums = Arrays.copyOf(sums, size);
+            }
+        }
+
+        int firstKey()
+        {
+            int i = 0;
+            if (dense)
+            {
+                while (counts[i] == 0)
+                {
+                    i++;
+                }
+            }
+            return dense ? base + i : keys[0];
+        }
+
+        int lastKey()
+        {
+            int i = counts.length - 1;
+            if (dense)
+            {
+                while (counts[i] == 0)
+                {
+                    i--;
+                }
+            }
+            return dense ? base + i : keys[size - 1];
+        }
+
+        int[] keys()
+        {
+            if (!dense)
+            {
+                return Arrays.copyOf(keys, size);
+            }
+            int[] result = new int[size];
+            int n = 0;
+            for (int i = 0; i < counts.length; i++)
+            {
+                if (counts[i] != 0)
+                {
+                    result[n++] = base + i;
+                }
+            }
+            return result;
+        }
+
+        long total(int fromKey, int toKey, boolean sums)
+        {
+            int[] values = sums ? this.sums : counts;
+            long result = 0;
+            if (dense)
+            {
+                int from = Math.max(fromKey, base) - base;
+                int to = Math.min(toKey, base + counts.length - 1) - base;
+                for (int i = from; i <= to; i++)
+                {
+                    result += values[i];
+                }
+            }
+            else if (fromKey <= toKey)
+            {
+                int i = Arrays.binarySearch(keys, 0, size, fromKey);
+                for (i = i < 0 ? -i - 1 : i; i < size && keys[i] <= toKey; i++)
+                {
+                    result += values[i];
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -1,15 +1,52 @@
 import java.io.*;
 import java.util.*;
 import java.text.*;
+import java.util.concurrent.CancellationException;
+import utilities.DateCodec;
+import utilities.Money;
 import utilities.Sorting;
 
 public class Restaurant implements Statable, Serializable
 {
     private String name;
-    private HashMap<String, MenuItem> menu;
-    private static Comparator[] comps = {new MenuItemNameComparator(), new MenuItemProfitComparator(), new MenuItemRatingComparator()};
+    private MenuIndex menu;
+    private transient ArrayList<TreeSet<SortKey>> sortIndexes;
+    private transient long totalProfit; // in cents
+    private transient RatingHistogram ratingHistogram; // every item's histogram merged
+    private transient RatingTimeline ratingTimeline; // every rating by date
+    private transient EnumMap<MenuCategory, RatingTimeline> categoryTimelines;
+    private transient ReviewerDictionary reviewers = new ReviewerDictionary();
+    private transient ReviewerIndex reviewerIndex;
+    private static List<Comparator<MenuItem>> comps = Arrays.<Comparator<MenuItem>> asList(new MenuItemNameComparator(), new MenuItemProfitComparator(),
+                                                                                           new MenuItemRatingComparator());
+    
+    private transient MenuLoadReport loadReport;
+    private transient MenuJournal journal;
+    private transient String snapshotFileName;
     
     private static final DecimalFormat FMT = new DecimalFormat("$#,##0.00");
+    // characters gathered before writeTo and writeState pass them on
+    private static final int WRITE_CHUNK = 8192;
+    // an interruptible sort looks for an interrupt once per this many comparisons (a power of 2)
+    private static final int INTERRUPT_CHECK = 4096;
+    
+    /** The constant used to indicate a text file, echoing every line as it is loaded */
+    public static final int TEXT_FILE = 1;
+    /** The constant used to indicate an object file */
+    public static final int OBJECT_FILE = 2;
+    /** The constant used to indicate a text file loaded quietly by a pool of parsing workers */
+    public static final int BULK_TEXT_FILE = 3;
+    /** The constant used to indicate a text file parsed quietly from a memory mapping */
+    public static final int MAPPED_TEXT_FILE = 4;
+    /** The constant used to indicate a binary snapshot file (see MenuSnapshot) */
+    public static final int SNAPSHOT_FILE = 5;
+    
+    /** The sort field for the average rating over the RECENT_DAYS up to the newest rating */
+    public static final int RECENT_RATING = 4;
+    /** The length in days of the window used by the recent rating sort field */
+    public static final int RECENT_DAYS = 30;
+    /** Page field for the menu's own order, which is the cheapest to walk */
+    public static final int UNSORTED = 0;
     
     public Restaurant(String name) throws RestaurantException
     {
@@ -18,9 +55,40 @@ public class Restaurant implements Statable, Serializable
     }
     
     public Restaurant(String name, String fileName, boolean isObjectFile) throws RestaurantException
+    {
+        this(name, fileName, isObjectFile ? OBJECT_FILE : TEXT_FILE);
+    }
+    
+    public Restaurant(String name, String fileName, int fileType) throws RestaurantException
     {
         this.name = name;
-        loadMenu(fileName, isObjectFile);
+        if (fileType == BULK_TEXT_FILE)
+        {
+            BulkMenuLoader loader = new BulkMenuLoader(fileName, reviewers);
+            ArrayList<MenuItem> items = loader.load();
+            mergeLoadedItems(items, loader.getReport());
+        }
+        else if (fileType == MAPPED_TEXT_FILE)
+        {
+            MappedMenuReader reader = new MappedMenuReader(fileName, reviewers);
+            ArrayList<MenuItem> items = reader.read();
+            mergeLoadedItems(items, reader.getReport());
+        }
+        else if (fileType == SNAPSHOT_FILE)
+        {
+            try
+            {
+                mergeLoadedItems(new MenuSnapshot(fileName).read(reviewers), null);
+            }
+            catch (IOException | MenuItemException | RatingException e)
+            {
+                throw new RestaurantException(e.getMessage());
+            }
+        }
+        else
+        {
+            loadMenu(fileName, fileType == OBJECT_FILE);
+        }
     }
     
     public Restaurant(String name, String fileName) throws RestaurantException
@@ -28,9 +96,108 @@ public class Restaurant implements Statable, Serializable
         this(name, fileName, false);
     }
     
+    /**
+     * Loads the snapshot (an empty menu if the file does not exist yet), replays the journal
+     * records written after it and then logs every further change to the journal.
+     */
+    public Restaurant(String name, String snapshotFileName, String journalFileName) throws RestaurantException
+    {
+        this.name = name;
+        this.snapshotFileName = snapshotFileName;
+        try
+        {
+            long sequence = 0;
+            if (new File(snapshotFileName).exists())
+            {
+                MenuSnapshot snapshot = new MenuSnapshot(snapshotFileName);
+                mergeLoadedItems(snapshot.read(reviewers), null);
+                sequence = snapshot.getJournalSequence();
+            }
+            else
+            {
+                resetMenu(new MenuIndex());
+            }
+            long lastSequence = MenuJournal.replay(journalFileName, this, sequence);
+            journal = new MenuJournal(journalFileName, Math.max(sequence, lastSequence));
+        }
+        catch (IOException | MenuItemException | RatingException e)
+        {
+            throw new RestaurantException(e.getMessage());
+        }
+    }
+    
+    /**
+     * Writes a new snapshot and empties the journal.  The snapshot is written to a temporary
+     * file and renamed into place, and it records the last journal sequence it contains, so a
+     * crash before the journal is emptied cannot apply a change twice.
+     */
+    public void checkpoint() throws RestaurantException
+    {
+        if (journal == null)
+        {
+            throw new RestaurantException("Restaurant " + name + " is not journaled");
+        }
+        try
+        {
+            File temp = new File(snapshotFileName + ".tmp");
+            MenuSnapshot.write(menu.values(), reviewers, temp.getPath(), journal.getLastSequence());
+            java.nio.file.Files.move(temp.toPath(), new File(snapshotFileName).toPath(),
+                                     java.nio.file.StandardCopyOption.REPLACE_EXISTING, java.nio.file.StandardCopyOption.ATOMIC_MOVE);
+            journal.truncate();
+        }
+        catch (IOException ioe)
+        {
+            throw new RestaurantException(ioe.getMessage());
+        }
+    }
+    
+    /**
+     * Waits for every journaled change to reach disk and closes the journal.
+     */
+    public void closeJournal() throws RestaurantException
+    {
+        if (journal != null)
+        {
+            try
+            {
+                journal.close();
+            }
+            catch (IOException ioe)
+            {
+                throw new RestaurantException(ioe.getMessage());
+            }
+            finally
+            {
+                journal = null;
+            }
+        }
+    }
+    
+    public boolean isJournaled()
+    {
+        return journal != null;
+    }
+    
+    // called by every change before it touches the menu, so a journal that can no longer be
+    // written leaves memory as it was instead of failing after the change is made
+    private void checkJournal() throws RestaurantException
+    {
+        if (journal != null)
+        {
+            try
+            {
+                journal.checkWritable();
+            }
+            catch (IOException ioe)
+            {
+                throw new RestaurantException("Journal " + journal.getFileName() + " cannot be written: " + ioe.getMessage());
+            }
+        }
+    }
+    
     private void loadMenu() throws RestaurantException
     {
-        menu = new HashMap<String, MenuItem>();
+        resetMenu(new MenuIndex());
         addToMenu("Steak", MenuCategory.MAIN, 8, 400, 10.99, 2.00);
         addToMenu("Spaghetti", MenuCategory.MAIN, 12, 500, 8.99, 1.50);
         addToMenu("Salad", MenuCategory.SIDE, 6, 200, 2.99, 0.75);
@@ -47,11 +214,16 @@ public class Restaurant implements Statable, Serializable
             {
                 FileInputStream fis = new FileInputStream(fileName);
                 ObjectInputStream ois = new ObjectInputStream(fis);
-                menu = (HashMap<String, MenuItem>) ois.readObject();
+                HashMap<String, MenuItem> items = (HashMap<String, MenuItem>) ois.readObject();
+                resetMenu(new MenuIndex(items.size()));
+                for (MenuItem item : items.values())
+                {
+                    addToMenu(item);
+                }
             }
             else
             {
-                menu = new HashMap<String, MenuItem>();
+                resetMenu(new MenuIndex());
                 FileIO br = new FileIO(fileName, FileIO.FOR_READING);
                 String line = br.readLine();
                 while (line != null)
@@ -73,26 +245,7 @@ public class Restaurant implements Statable, Serializable
     {
         try
         {
-            String[] tokens = line.split(",");
-            String name = tokens[0];
-            MenuCategory cat = MenuCategory.valueOf(tokens[1]);
-            int servingSize = Integer.parseInt(tokens[2]);
-            int numCalories = Integer.parseInt(tokens[3]);
-            double price = Double.parseDouble(tokens[4]);
-            double wholesale = Double.parseDouble(tokens[5]);
-            int numOrders = Integer.parseInt(tokens[6]);
-            double totalCost = Double.parseDouble(tokens[7]);
-            double totalSales = Double.parseDouble(tokens[8]);
-            boolean active = Boolean.parseBoolean(tokens[9]);
-            int numRatings = Integer.parseInt(tokens[11]);
-            ArrayList<Rating> ratings = new ArrayList<Rating>();
-            for (int i = 1; i <= numRatings; i++)
-            {
-                String[] ratingTokens = tokens[11+i].split(":");
-                ratings.add(new Rating(ratingTokens[0], ratingTokens[1], Integer.parseInt(ratingTokens[2])));
-            }
-            boolean recommended = Boolean.parseBoolean(tokens[10]);
-            boolean success = addToMenu(name, cat, servingSize, numCalories, price, wholesale, numOrders, totalCost, totalSales, active, ratings, recommended);
+            boolean success = addToMenu(parseLine(line, reviewers));
             System.out.println(line + " added: " + success);
         }
         catch (Exception e)
@@ -101,14 +254,79 @@ public class Restaurant implements Statable, Serializable
         }
     }
     
+    private void mergeLoadedItems(ArrayList<MenuItem> items, MenuLoadReport report)
+    {
+        loadReport = report;
+        resetMenu(new MenuIndex(items.size()));
+        for (MenuItem item : items)
+        {
+            if (!addToMenu(item) && loadReport != null)
+            {
+                loadReport.addError(item.getName() + " is already on the menu");
+            }
+        }
+        if (loadReport != null)
+        {
+            loadReport.finish(menu.size());
+        }
+    }
+    
+    /**
+     * Builds a MenuItem from one line in the format written by MenuItem.getState, keeping its
+     * reviewers in the given dictionary.
+     */
+    static MenuItem parseLine(String line, ReviewerDictionary reviewers) throws MenuItemException, RatingException
+    {
+        String[] tokens = line.split(",");
+        String name = tokens[0];
+        MenuCategory cat = MenuCategory.valueOf(tokens[1]);
+        int servingSize = Integer.parseInt(tokens[2]);
+        int numCalories = Integer.parseInt(tokens[3]);
+        long price = Money.parse(tokens[4]);
+        long wholesale = Money.parse(tokens[5]);
+        int numOrders = Integer.parseInt(tokens[6]);
+        long totalCost = Money.parse(tokens[7]);
+        long totalSales = Money.parse(tokens[8]);
+        boolean active = Boolean.parseBoolean(tokens[9]);
+        int numRatings = Integer.parseInt(tokens[11]);
+        RatingStore ratings = new RatingStore(reviewers, numRatings);
+        for (int i = 1; i <= numRatings; i++)
+        {
+            // reviewer:mm/dd/yyyy:rating, with the date and rating read in place
+            String token = tokens[11+i];
+            int first = token.indexOf(':');
+            int last = token.lastIndexOf(':');
+            if (first < 0 || first == last)
+            {
+                throw new RatingException("Invalid review information");
+            }
+            ratings.add(token.substring(0, first), DateCodec.parse(token, first + 1, last),
+                        Integer.parseInt(token, last + 1, token.length(), 10));
+        }
+        boolean recommended = Boolean.parseBoolean(tokens[10]);
+        return new MenuItem(name, cat, servingSize, numCalories, price, wholesale, numOrders, totalCost, totalSales, active, recommended, ratings);
+    }
+    
+    public MenuLoadReport getLoadReport()
+    {
+        return loadReport;
+    }
+    
     public boolean addToMenu(String itemName, MenuCategory cat, int servingSize, int numCalories, double price,
                            double wholesale) throws RestaurantException
     {
-        return addToMenu(itemName, cat, servingSize, numCalories, price, wholesale, 0, 0, 0, false, new ArrayList<Rating>(), false);
+        checkJournal();
+        boolean result = addToMenu(itemName, cat, servingSize, numCalories, Money.toCents(price), Money.toCents(wholesale), 0, 0, 0, false,
+                                   new ArrayList<Rating>(), false);
+        if (result && journal != null)
+        {
+            journal.logAdd(itemName, cat, servingSize, numCalories, price, wholesale);
+        }
+        return result;
     }
     
-    private boolean addToMenu(String itemName, MenuCategory cat, int servingSize, int numCalories, double price,
-                             double wholesale, int numOrders, double totalCost, double totalSales, boolean active, ArrayList<Rating> ratings, boolean recommended)
+    private boolean addToMenu(String itemName, MenuCategory cat, int servingSize, int numCalories, long price,
+                             long wholesale, int numOrders, long totalCost, long totalSales, boolean active, ArrayList<Rating> ratings, boolean recommended)
                    throws RestaurantException
     {
         boolean result = false;
@@ -117,8 +335,7 @@ public class Restaurant implements Statable, Serializable
         {
             try
             {
-               addToMenu(new MenuItem(itemName, cat, servingSize, numCalories, price, wholesale, numOrders, totalCost, totalSales, active, recommended, ratings));
-               result = true;
+               result = addToMenu(new MenuItem(itemName, cat, servingSize, numCalories, price, wholesale, numOrders, totalCost, totalSales, active, recommended, ratings));
             }
             catch (MenuItemException mie)
             {
@@ -128,217 +345,908 @@ public class Restaurant implements Statable, Serializable
         return result;
     }
     
-    private void addToMenu(MenuItem item)
+    private boolean addToMenu(MenuItem item)
+    {
+        if (!menu.put(item))
+        {
+            return false;
+        }
+        item.getRatingStore().rebind(reviewers);
+        reviewerIndex.addAll(item);
+        for (int field = 1; field <= sortIndexes.size(); field++)
+        {
+            getSortIndex(field).add(indexKey(field, item));
+        }
+        addToTotals(item, 1);
+        return true;
+    }
+    
+    // sign is 1 to count an item in the running totals and -1 to take it back out
+    private void addToTotals(MenuItem item, int sign)
+    {
+        totalProfit += sign * item.getProfitCents();
+        ratingHistogram.merge(item.getRatingHistogram(), sign);
+        ratingTimeline.addAll(item.getRatingStore(), sign);
+        categoryTimelines.get(item.getCategory()).addAll(item.getRatingStore(), sign);
+    }
+    
+    private void resetMenu(MenuIndex items)
+    {
+        menu = items;
+        reviewerIndex = new ReviewerIndex(reviewers);
+        buildSortIndexes();
+        totalProfit = 0;
+        ratingHistogram = new RatingHistogram();
+        ratingTimeline = new RatingTimeline();
+        categoryTimelines = new EnumMap<MenuCategory, RatingTimeline>(MenuCategory.class);
+        for (MenuCategory cat : MenuCategory.values())
+        {
+            categoryTimelines.put(cat, new RatingTimeline());
+        }
+        for (MenuItem item : menu.values())
+        {
+            addToTotals(item, 1);
+        }
+    }
+    
+    // each index orders by one sort field, breaking ties by name so every item has a unique slot
+    private void buildSortIndexes()
     {
-        menu.put(item.getName().toLowerCase(), item);
+        sortIndexes = new ArrayList<TreeSet<SortKey>>();
+        for (int field = 1; field <= comps.size(); field++)
+        {
+            TreeSet<SortKey> index = new TreeSet<SortKey>();
+            for (MenuItem item : menu.values())
+            {
+                index.add(indexKey(field, item));
+            }
+            sortIndexes.add(index);
+        }
+    }
+    
+    private TreeSet<SortKey> getSortIndex(int field)
+    {
+        if (field >= 1 && field <= comps.size())
+        {
+            return sortIndexes.get(field - 1);
+        }
+        return sortIndexes.get(0);
+    }
+    
+    // the index's comparator, or for the recent rating the window ending at the newest rating
+    private Comparator<MenuItem> getComparator(int field)
+    {
+        if (field == RECENT_RATING)
+        {
+            int toDay = getRecentEnd();
+            Comparator<MenuItem> recent = new MenuItemRecentRatingComparator(toDay - RECENT_DAYS + 1, toDay);
+            return recent.thenComparing(new MenuItemNameComparator());
+        }
+        Comparator<MenuItem> fieldComp = comps.get(field >= 1 && field <= comps.size() ? field - 1 : 0);
+        return fieldComp.thenComparing(new MenuItemNameComparator());
+    }
+    
+    // the entry for the item in an index; the key is taken now, so an item about to change must be
+    // taken out of the index before the change and put back after it
+    private static SortKey indexKey(int field, MenuItem item)
+    {
+        return new SortKey(fieldKey(field, item, 0, 0), item.getName(), item);
+    }
+    
+    // the items of an index in its order
+    private MenuItem[] indexOrder(int field)
+    {
+        MenuItem[] result = new MenuItem[menu.size()];
+        int i = 0;
+        for (SortKey entry : getSortIndex(field))
+        {
+            result[i++] = entry.item;
+        }
+        return result;
     }
     
     private MenuItem findMenuItem(String key)
     {
-        return menu.get(key.toLowerCase());
+        return menu.get(key);
     }
     
-    public boolean removeFromMenu(String key)
+    // a handle caches its item until the menu gains or loses an item
+    private MenuItem findMenuItem(MenuItemHandle handle)
     {
-        return menu.remove(key.toLowerCase()) != null;
+        MenuItem result = null;
+        if (handle.getRestaurant() == this)
+        {
+            result = handle.getItem(menu.getModCount());
+            if (result == null)
+            {
+                result = menu.get(handle.getName());
+                handle.refresh(result, menu.getModCount());
+            }
+        }
+        return result;
     }
     
-    public boolean activate(String key)
+    /**
+     * Looks an item up once so that later order and addRating calls through the handle skip
+     * the name lookup.  Returns null if no item has that name.
+     */
+    public MenuItemHandle resolve(CharSequence itemName)
     {
+        MenuItemHandle result = null;
+        MenuItem which = menu.get(itemName);
+        if (which != null)
+        {
+            result = new MenuItemHandle(this, which.getName(), which, menu.getModCount());
+        }
+        return result;
+    }
+    
+    public boolean removeFromMenu(String key) throws RestaurantException
+    {
+        checkJournal();
+        MenuItem removed = menu.remove(key);
+        if (removed != null)
+        {
+            for (int field = 1; field <= sortIndexes.size(); field++)
+            {
+                getSortIndex(field).remove(indexKey(field, removed));
+            }
+            addToTotals(removed, -1);
+            reviewerIndex.removeAll(removed);
+            if (journal != null)
+            {
+                journal.logRemove(key);
+            }
+        }
+        return removed != null;
+    }
+    
+    public boolean activate(String key) throws RestaurantException
+    {
+        checkJournal();
         boolean result = false;
-        MenuItem mi = findMenuItem(key.toLowerCase());
+        MenuItem mi = findMenuItem(key);
         if (mi != null)
         {
             mi.activate();
             result = true;
+            if (journal != null)
+            {
+                journal.logActivate(key);
+            }
         }
         return result;
     }
     
-    public void activate()
+    public void activate() throws RestaurantException
     {
+        checkJournal();
         Collection<MenuItem> allItems = menu.values();
         for (MenuItem item: allItems)
         {
             item.activate();
         }
+        if (journal != null)
+        {
+            journal.logActivate(null);
+        }
     }
     
-    public boolean discontinue(String key)
+    public boolean discontinue(String key) throws RestaurantException
     {
+        checkJournal();
         boolean result = false;
-        MenuItem mi = findMenuItem(key.toLowerCase());
+        MenuItem mi = findMenuItem(key);
         if (mi != null)
         {
             mi.discontinue();
             result = true;
+            if (journal != null)
+            {
+                journal.logDiscontinue(key);
+            }
         }
         return result;
     }
     
-    public void discontinue()
+    public void discontinue() throws RestaurantException
     {
+        checkJournal();
         Collection<MenuItem> allItems = menu.values();
         for (MenuItem item: allItems)
         {
             item.discontinue();
         }
+        if (journal != null)
+        {
+            journal.logDiscontinue(null);
+        }
     }
     
-    public boolean setCalories(String key, int numCalories)
+    public boolean setCalories(String key, int numCalories) throws RestaurantException
     {
+        checkJournal();
         boolean result = false;
-        MenuItem which = findMenuItem(key.toLowerCase());
+        MenuItem which = findMenuItem(key);
         if (which != null)
         {
             result = which.setCalories(numCalories);
+            if (result && journal != null)
+            {
+                journal.logSetCalories(key, numCalories);
+            }
         }
         return result;
     }
     
-    public boolean setServingSize(String key, int servingSize)
+    public boolean setServingSize(String key, int servingSize) throws RestaurantException
     {
+        checkJournal();
         boolean result = false;
-        MenuItem which = findMenuItem(key.toLowerCase());
+        MenuItem which = findMenuItem(key);
         if (which != null)
         {
             result = which.setServingSize(servingSize);
+            if (result && journal != null)
+            {
+                journal.logSetServingSize(key, servingSize);
+            }
         }
         return result;
     }
     
-    public boolean updatePrice(boolean isWholesale, String key, int percentage)
+    public boolean updatePrice(boolean isWholesale, String key, int percentage) throws RestaurantException
     {
+        checkJournal();
         boolean result = false;
-        MenuItem which = findMenuItem(key.toLowerCase());
+        MenuItem which = findMenuItem(key);
         if (which != null)
         {
             result = which.updatePrice(isWholesale, percentage);
+            if (result && journal != null)
+            {
+                journal.logUpdatePrice(isWholesale, key, percentage);
+            }
         }
         return result;
     }
     
-    public boolean updatePrice(boolean isWholesale, int percentage)
+    public boolean updatePrice(boolean isWholesale, int percentage) throws RestaurantException
     {
+        checkJournal();
         boolean result = false;
         Collection<MenuItem> allItems = menu.values();
         for (MenuItem item: allItems)
         {
             result = item.updatePrice(isWholesale, percentage);
         }
+        if (result && journal != null)
+        {
+            journal.logUpdatePrice(isWholesale, null, percentage);
+        }
         return result;
     }
 
     public boolean addRating(String itemName, String reviewerName, String date, int rating) throws RestaurantException
     {
+        return addRating(findMenuItem(itemName), reviewerName, date, rating);
+    }
+    
+    public boolean addRating(MenuItemHandle handle, String reviewerName, String date, int rating) throws RestaurantException
+    {
+        return addRating(findMenuItem(handle), reviewerName, date, rating);
+    }
+    
+    private boolean addRating(MenuItem which, String reviewerName, String date, int rating) throws RestaurantException
+    {
+        checkJournal();
         boolean result = false;
-        MenuItem which = findMenuItem(itemName.toLowerCase());
         if (which != null)
         {
+            TreeSet<SortKey> index = getSortIndex(3);
+            index.remove(indexKey(3, which));
             try
             {
                 result = which.addRating(reviewerName, date, rating);
+                if (result)
+                {
+                    ratingHistogram.add(rating);
+                    int day = which.getRatingStore().getEpochDay(which.getNumRatings() - 1);
+                    ratingTimeline.add(day, rating);
+                    categoryTimelines.get(which.getCategory()).add(day, rating);
+                    reviewerIndex.add(which, which.getNumRatings() - 1);
+                    if (journal != null)
+                    {
+                        journal.logRating(which.getName(), reviewerName, date, rating);
+                    }
+                }
             }
             catch (MenuItemException mie)
             {
                 throw new RestaurantException(mie.getMessage());
             }
+            finally
+            {
+                index.add(indexKey(3, which));
+            }
         }
         return result;
     }
     
-    public boolean order(String itemName, int numOrders)
+    public int getNumRatingsBy(String reviewer)
+    {
+        return reviewerIndex.getCount(reviewers.getId(reviewer));
+    }
+    
+    /**
+     * Every rating written by the reviewer, one per line as "item name - review", in the order
+     * they were added to the menu.  Finding them does not scan the menu.
+     */
+    public String getRatingsBy(String reviewer)
+    {
+        StringBuilder builder = new StringBuilder();
+        int id = reviewers.getId(reviewer);
+        for (int i = 0; i < reviewerIndex.getCount(id); i++)
+        {
+            MenuItem item = reviewerIndex.getItem(id, i);
+            builder.append(item.getName()).append(" - ");
+            item.getRatingStore().appendReview(builder, reviewerIndex.getPosition(id, i));
+            builder.append("\r\n");
+        }
+        return builder.toString();
+    }
+    
+    /**
+     * Reviews of one item dated fromDate to toDate (inclusive, mm/dd/yyyy), oldest first, or null
+     * if no item has that name.
+     */
+    public String getReviews(String itemName, String fromDate, String toDate) throws RestaurantException
+    {
+        int fromDay = DateCodec.parse(fromDate);
+        int toDay = DateCodec.parse(toDate);
+        if (fromDay == DateCodec.INVALID || toDay == DateCodec.INVALID)
+        {
+            throw new RestaurantException("Invalid date - dates must be real days in mm/dd/yyyy form");
+        }
+        MenuItem which = findMenuItem(itemName);
+        return which == null ? null : which.getReviews(fromDay, toDay);
+    }
+    
+    public boolean order(String itemName, int numOrders) throws RestaurantException
     {
+        return order(findMenuItem(itemName), numOrders);
+    }
+    
+    public boolean order(MenuItemHandle handle, int numOrders) throws RestaurantException
+    {
+        return order(findMenuItem(handle), numOrders);
+    }
+    
+    private boolean order(MenuItem which, int numOrders) throws RestaurantException
+    {
+        checkJournal();
         boolean result = false;
-        MenuItem which = findMenuItem(itemName.toLowerCase());
         if (which != null)
         {
+            TreeSet<SortKey> index = getSortIndex(2);
+            index.remove(indexKey(2, which));
+            long oldProfit = which.getProfitCents();
             result = which.order(numOrders);
+            totalProfit += which.getProfitCents() - oldProfit;
+            index.add(indexKey(2, which));
+            if (result && journal != null)
+            {
+                journal.logOrder(which.getName(), numOrders);
+            }
         }
         return result;
     }
     
-    public double getTotalProfit()
+    /**
+     * Orders every line of the ticket or none of them.  Each name is looked up once and every
+     * line is checked before anything changes; the result holds one OrderTicket status per line.
+     */
+    public int[] orderBatch(OrderTicket ticket) throws RestaurantException
     {
-        double result = 0;
-        Collection<MenuItem> allItems = menu.values();
-        for (MenuItem item: allItems)
+        int numLines = ticket.size();
+        int[] result = new int[numLines];
+        MenuItem[] items = new MenuItem[numLines];
+        boolean valid = true;
+        for (int i = 0; i < numLines; i++)
+        {
+            items[i] = findMenuItem(ticket.getItemName(i));
+            if (items[i] == null)
+            {
+                result[i] = OrderTicket.NOT_FOUND;
+            }
+            else if (!items[i].isActive())
+            {
+                result[i] = OrderTicket.INACTIVE;
+            }
+            else if (ticket.getQuantity(i) <= 0)
+            {
+                result[i] = OrderTicket.INVALID_QUANTITY;
+            }
+            valid = valid && result[i] == OrderTicket.ORDERED;
+        }
+        
+        if (!valid)
+        {
+            for (int i = 0; i < numLines; i++)
+            {
+                if (result[i] == OrderTicket.ORDERED)
+                {
+                    result[i] = OrderTicket.NOT_APPLIED;
+                }
+            }
+            return result;
+        }
+        
+        checkJournal();
+        TreeSet<SortKey> index = getSortIndex(2);
+        for (int i = 0; i < numLines; i++)
+        {
+            index.remove(indexKey(2, items[i]));
+            long oldProfit = items[i].getProfitCents();
+            items[i].order(ticket.getQuantity(i));
+            totalProfit += items[i].getProfitCents() - oldProfit;
+            index.add(indexKey(2, items[i]));
+        }
+        if (journal != null)
         {
-            result += item.getTotalSales() - item.getTotalWholesaleCost();
+            journal.logBatch(ticket);
         }
         return result;
     }
     
+    public double getTotalProfit()
+    {
+        return Money.toDollars(totalProfit);
+    }
+    
+    public long getTotalProfitCents()
+    {
+        return totalProfit;
+    }
     
     public double getAverageItemRating()
     {
-        int numRaters = 0;
+        return ratingHistogram.getAverage();
+    }
+    
+    /**
+     * A copy of the counts by score across every rating on the menu.
+     */
+    public RatingHistogram getRatingHistogram()
+    {
+        RatingHistogram result = new RatingHistogram();
+        result.merge(ratingHistogram, 1);
+        return result;
+    }
+    
+    /**
+     * The item's average rating pulled toward the restaurant-wide average, weighted as many
+     * ratings as an item has on average.  Returns 0 if no item has that name.
+     */
+    public double getBayesianAverage(String itemName)
+    {
         double result = 0;
-        Collection<MenuItem> allItems = menu.values();
-        for (MenuItem item: allItems)
+        MenuItem which = findMenuItem(itemName);
+        if (which != null)
+        {
+            double priorWeight = (double) ratingHistogram.getTotal() / menu.size();
+            result = which.getBayesianAverage(ratingHistogram.getAverage(), priorWeight);
+        }
+        return result;
+    }
+    
+    /**
+     * Epoch day of the newest rating on the menu, or DateCodec.INVALID if there are no ratings.
+     */
+    public int getLastRatingDay()
+    {
+        return ratingTimeline.getLastDay();
+    }
+    
+    /**
+     * Ratings dated fromDay to toDay (inclusive epoch days) for one category, or for the whole
+     * menu when cat is null.
+     */
+    public int getNumRatings(MenuCategory cat, int fromDay, int toDay)
+    {
+        return getRatingTimeline(cat).getCount(fromDay, toDay);
+    }
+    
+    public double getAverageRating(MenuCategory cat, int fromDay, int toDay)
+    {
+        return getRatingTimeline(cat).getAverage(fromDay, toDay);
+    }
+    
+    // the last day of the recent rating window: the newest rating, or today on an unrated menu
+    private int getRecentEnd()
+    {
+        return ratingTimeline.isEmpty() ? DateCodec.today() : ratingTimeline.getLastDay();
+    }
+    
+    private RatingTimeline getRatingTimeline(MenuCategory cat)
+    {
+        return cat == null ? ratingTimeline : categoryTimelines.get(cat);
+    }
+    
+    /**
+     * Counts and averages for the numDays ending at endDate (mm/dd/yyyy): the whole menu, each
+     * category, each item rated in the window, then the whole menu for each calendar month the
+     * window touches.  Everything
+     * is read from the rating timelines, so the cost follows the number of items and months
+     * rather than the number of ratings.
+     */
+    public String getRecentRatingReport(String endDate, int numDays) throws RestaurantException
+    {
+        int toDay = DateCodec.parse(endDate);
+        if (toDay == DateCodec.INVALID || numDays < 1)
+        {
+            throw new RestaurantException("Invalid window - the end date must be a real day in mm/dd/yyyy form and the length at least 1 day");
+        }
+        int fromDay = toDay - numDays + 1;
+        StringBuilder builder = new StringBuilder();
+        builder.append("Ratings from ").append(DateCodec.format(fromDay)).append(" to ").append(endDate).append("\r\n");
+        appendWindow(builder, "All items", ratingTimeline, fromDay, toDay);
+        for (MenuCategory cat : MenuCategory.values())
+        {
+            appendWindow(builder, cat.toString(), categoryTimelines.get(cat), fromDay, toDay);
+        }
+        builder.append("\r\nItems rated in the window:\r\n");
+        // each item's window average is looked up once and sorted as a primitive key
+        MenuItem[] rated = new MenuItem[menu.size()];
+        long[] keys = new long[menu.size()];
+        int numRated = 0;
+        for (MenuItem item : menu.values())
+        {
+            if (item.getNumRatings(fromDay, toDay) > 0)
+            {
+                keys[numRated] = ~Sorting.sortableKey(item.getAverageRating(fromDay, toDay));
+                rated[numRated++] = item;
+            }
+        }
+        if (numRated > 0)
+        {
+            Sorting.<MenuItem> keySort(rated, numRated, keys, new MenuItemNameComparator());
+        }
+        for (int i = 0; i < numRated; i++)
+        {
+            appendWindow(builder, rated[i].getName(), rated[i].getRatingTimeline(), fromDay, toDay);
+        }
+        builder.append("\r\nBy month:\r\n");
+        for (int month : ratingTimeline.getMonths())
+        {
+            if (month >= DateCodec.toMonth(fromDay) && month <= DateCodec.toMonth(toDay))
+            {
+                appendWindow(builder, DateCodec.formatMonth(month), ratingTimeline, DateCodec.firstDayOfMonth(month), DateCodec.lastDayOfMonth(month));
+            }
+        }
+        return builder.toString();
+    }
+    
+    private static void appendWindow(StringBuilder builder, String label, RatingTimeline timeline, int fromDay, int toDay)
+    {
+        int count = timeline.getCount(fromDay, toDay);
+        builder.append(label).append(": ").append(count).append(count == 1 ? " rating" : " ratings");
+        if (count > 0)
+        {
+            builder.append(", average ").append(String.format("%.2f", timeline.getAverage(fromDay, toDay)));
+        }
+        builder.append("\r\n");
+    }
+    
+    public ArrayList<MenuItem> topK(int field, int k)
+    {
+        Comparator<MenuItem> comp = getComparator(field);
+        return Sorting.<MenuItem> selectFirst(menu.values(), k, comp);
+    }
+    
+    public ArrayList<MenuItem> bottomK(int field, int k)
+    {
+        Comparator<MenuItem> comp = getComparator(field);
+        return Sorting.<MenuItem> selectFirst(menu.values(), k, comp.reversed());
+    }
+    
+    /**
+     * The first pageSize items ordered by the given sort field (1 to 4, as for sort), or in the
+     * menu's own order for UNSORTED; pass the page's next token to getNextPage for the rest.
+     * Fields 1 to 3 walk the sort index on from the last item shown, so a page costs its own
+     * size rather than a sort of the whole menu.  The recent rating has no index and selects
+     * each page with a bounded heap instead, over a window fixed when the first page was taken.
+     * Pages see changes made between calls, so an item that moves meanwhile can be shown twice
+     * or missed.
+     */
+    public MenuPage getPage(int field, int pageSize) throws RestaurantException
+    {
+        checkPageSize(pageSize);
+        if (field < UNSORTED || field > RECENT_RATING)
+        {
+            field = 1;
+        }
+        return page(field, null, 0, getRecentEnd(), pageSize);
+    }
+    
+    public MenuPage getNextPage(String token, int pageSize) throws RestaurantException
+    {
+        checkPageSize(pageSize);
+        String[] parts = token == null ? new String[0] : token.split(":", 4);
+        MenuPage result;
+        try
+        {
+            int field = Integer.parseInt(parts[0]);
+            long key = Long.parseLong(parts[1]);
+            int day = Integer.parseInt(parts[2]);
+            if (field < UNSORTED || field > RECENT_RATING)
+            {
+                throw new NumberFormatException();
+            }
+            if (field == UNSORTED && day != menu.getCapacity())
+            {
+                throw new RestaurantException("The menu has been resized since that page - start the listing again");
+            }
+            SortKey after = field == UNSORTED ? null : new SortKey(key, parts[3], null);
+            result = page(field, after, (int) key, day, pageSize);
+        }
+        catch (NumberFormatException | ArrayIndexOutOfBoundsException e)
+        {
+            throw new RestaurantException("Invalid page token");
+        }
+        return result;
+    }
+    
+    private static void checkPageSize(int pageSize) throws RestaurantException
+    {
+        if (pageSize < 1)
+        {
+            throw new RestaurantException("The page size must be at least 1");
+        }
+    }
+    
+    // the items after the given key (or from the given slot when unsorted), plus the token for the
+    // page after them; one item past the page is fetched to tell whether there is such a page
+    private MenuPage page(int field, SortKey after, int fromSlot, int toDay, int pageSize)
+    {
+        int limit = Math.min(pageSize, menu.size());
+        ArrayList<MenuItem> items = new ArrayList<MenuItem>(limit + 1);
+        ArrayList<SortKey> keys = new ArrayList<SortKey>(limit + 1);
+        String nextToken = null;
+        if (field == UNSORTED)
+        {
+            int slot = menu.page(fromSlot, limit, items);
+            if (slot >= 0)
+            {
+                nextToken = UNSORTED + ":" + slot + ":" + menu.getCapacity() + ":";
+            }
+        }
+        else if (field == RECENT_RATING)
+        {
+            // keyed the same way as an index, over the window fixed when the first page was taken
+            ArrayList<SortKey> all = new ArrayList<SortKey>(menu.size());
+            for (MenuItem item : menu.values())
+            {
+                all.add(new SortKey(fieldKey(field, item, toDay - RECENT_DAYS + 1, toDay), item.getName(), item));
+            }
+            keys = Sorting.<SortKey> selectFirstAfter(all, after, limit + 1, Comparator.<SortKey> naturalOrder());
+        }
+        else
+        {
+            TreeSet<SortKey> index = getSortIndex(field);
+            Iterator<SortKey> it = after == null ? index.iterator() : index.tailSet(after, false).iterator();
+            while (keys.size() <= limit && it.hasNext())
+            {
+                keys.add(it.next());
+            }
+        }
+        if (field != UNSORTED)
+        {
+            for (SortKey entry : keys)
+            {
+                items.add(entry.item);
+            }
+            if (items.size() > limit)
+            {
+                items.remove(limit);
+                SortKey last = keys.get(limit - 1);
+                nextToken = field + ":" + last.key + ":" + toDay + ":" + last.name;
+            }
+        }
+        return new MenuPage(items, nextToken);
+    }
+    
+    /**
+     * A sort index entry, or a place to seek to in one: the item's value for the field as a long
+     * that sorts in the field's order, then the item's name to break ties.  A page token holds
+     * the key and name of the last item shown, so the next page starts in the right place even
+     * if that item has changed or left the menu since.
+     */
+    private static class SortKey implements Comparable<SortKey>
+    {
+        private long key;
+        private String name;
+        private MenuItem item; // null when only seeking
+        
+        SortKey(long key, String name, MenuItem item)
+        {
+            this.key = key;
+            this.name = name;
+            this.item = item;
+        }
+        
+        public int compareTo(SortKey other)
         {
-            numRaters += item.getNumRatings();
-            result += item.getAverageRating() * item.getNumRatings();
+            int result = Long.compare(key, other.key);
+            return result != 0 ? result : name.compareTo(other.name);
         }
-        if (numRaters > 0)
+    }
+    
+    /**
+     * Every item ordered by the given sort field (1 to 4, as for sort), or in the menu's own
+     * order for UNSORTED, the fastest way there is for the field: a walk of the sort index for
+     * fields 1 to 3 and a primitive key sort for the recent rating.
+     */
+    public MenuItem[] getSortedItems(int field)
+    {
+        MenuItem[] result = new MenuItem[menu.size()];
+        if (field >= 1 && field <= comps.size())
         {
-            result = result / numRaters;
+            result = indexOrder(field);
+        }
+        else
+        {
+            result = menu.values().toArray(result);
+            if (field == RECENT_RATING)
+            {
+                // equal averages fall back to the name, as in the recent rating comparator
+                Sorting.<MenuItem> keySort(result, sortKeys(result, field), new MenuItemNameComparator());
+            }
         }
         return result;
     }
     
+    /**
+     * The item with that name, or null if there is none.
+     */
+    public MenuItem getMenuItem(String itemName)
+    {
+        return findMenuItem(itemName);
+    }
+    
+    public Collection<MenuItem> getMenuItems()
+    {
+        return Collections.unmodifiableCollection(menu.values());
+    }
+    
     public ArrayList<String> getAllItemNames()
     {
-        ArrayList result = new ArrayList<String>();
-        Set<String> allKeys = menu.keySet();
-        for (String s: allKeys)
+        ArrayList result = new ArrayList<String>(menu.size());
+        for (MenuItem item: menu.values())
         {
-            result.add(s);
+            result.add(item.getName().toLowerCase());
         }
         return result;
     }
     
     public String toString()
     {
-        Collection<MenuItem> allItems = menu.values();
-        StringBuffer buf = new StringBuffer("Restaurant " + name + " with the following menu items:\r\n");
-        for (MenuItem item: allItems)
+        StringBuilder builder = new StringBuilder();
+        try
         {
-            buf.append("\r\n****\r\n" + item);
+            writeTo(builder);
         }
-        return buf.toString();
+        catch (IOException e)
+        {
+            // a StringBuilder never throws
+        }
+        return builder.toString();
     }
     
     public String getState()
     {
-        Collection<MenuItem> allItems = menu.values();
-        StringBuffer buf = new StringBuffer("");
-        for (MenuItem item: allItems)
+        StringBuilder builder = new StringBuilder();
+        try
+        {
+            writeState(builder);
+        }
+        catch (IOException e)
         {
-            buf.append(item.getState() + "\r\n");
+            // a StringBuilder never throws
         }
-        return buf.toString().trim();        
+        return builder.toString();
+    }
+    
+    /**
+     * Writes the same text as toString, one item at a time.
+     */
+    public void writeTo(Appendable out) throws IOException
+    {
+        out.append("Restaurant ").append(name).append(" with the following menu items:\r\n");
+        write(out, false);
+    }
+    
+    /**
+     * Writes the same text as getState, one item at a time.
+     */
+    public void writeState(Appendable out) throws IOException
+    {
+        write(out, true);
+    }
+    
+    // every item through one reused builder, passed on whenever it holds a few KB
+    private void write(Appendable out, boolean isState) throws IOException
+    {
+        StringBuilder builder = new StringBuilder(WRITE_CHUNK + WRITE_CHUNK / 2);
+        boolean isFirst = true;
+        for (MenuItem item : menu.values())
+        {
+            if (isState)
+            {
+                if (!isFirst)
+                {
+                    builder.append("\r\n");
+                }
+                item.appendState(builder);
+            }
+            else
+            {
+                builder.append("\r\n****\r\n");
+                item.appendTo(builder);
+            }
+            isFirst = false;
+            if (builder.length() >= WRITE_CHUNK)
+            {
+                out.append(builder);
+                builder.setLength(0);
+            }
+        }
+        out.append(builder);
     }
     
     public void writeToFile(String fileName, boolean isObjectFile) throws RestaurantException
+    {
+        writeToFile(fileName, isObjectFile ? OBJECT_FILE : TEXT_FILE);
+    }
+    
+    public void writeToFile(String fileName, int fileType) throws RestaurantException
     {
         try
         {
-            if (isObjectFile)
+            if (fileType == SNAPSHOT_FILE)
+            {
+                // a snapshot taken while journaled holds every record logged so far, so it must say
+                // so or replaying the journal over it would apply those records a second time
+                MenuSnapshot.write(menu.values(), reviewers, fileName, journal == null ? 0 : journal.getLastSequence());
+            }
+            else if (fileType == OBJECT_FILE)
             {
                 FileOutputStream fos = new FileOutputStream(fileName);
                 ObjectOutputStream oos = new ObjectOutputStream(fos);
-                oos.writeObject(menu);
+                // object files hold a HashMap keyed by lower-case name, as they always have
+                HashMap<String, MenuItem> items = new HashMap<String, MenuItem>(menu.size() * 4 / 3 + 1);
+                for (MenuItem item : menu.values())
+                {
+                    items.put(item.getName().toLowerCase(), item);
+                }
+                oos.writeObject(items);
                 fos.close();
             }
             else
             {
-                FileIO fw = new FileIO(fileName, FileIO.FOR_WRITING);
-                fw.writeLine(getState());
-                fw.close();              
+                Writer out = new BufferedWriter(new FileWriter(fileName), WRITE_CHUNK * 8);
+                try
+                {
+                    writeState(out);
+                    out.write(System.lineSeparator());
+                }
+                finally
+                {
+                    out.close();
+                }
             }
         }
-        catch (FileIOException | IOException e)
+        catch (IOException e)
         {
             throw new RestaurantException(e.getMessage());
         }
@@ -350,17 +1258,35 @@ public class Restaurant implements Statable, Serializable
     }
     
     public String sort(int field, int alg)
+    {
+       return sort(field, alg, false);
+    }
+    
+    /**
+     * Same as sort(field, alg), except that when isInterruptible the sort gives up with a
+     * CancellationException soon after the calling thread is interrupted, so a slow sort run in
+     * the background can be cancelled.
+     */
+    public String sort(int field, int alg, boolean isInterruptible)
     {
        Collection<MenuItem> allItems = menu.values();
        MenuItem[] allItemsArray = allItems.toArray(new MenuItem[0]);
        Comparator<MenuItem> currComp;
-       if (field >= 1 && field <= comps.length)
+       if (field == RECENT_RATING)
        {
-           currComp = (Comparator<MenuItem>) comps[field - 1];
+           currComp = getComparator(field);
+       }
+       else if (field >= 1 && field <= comps.size())
+       {
+           currComp = comps.get(field - 1);
        }
        else
        {
-           currComp = (Comparator<MenuItem>) comps[0];
+           currComp = comps.get(0);
+       }
+       if (isInterruptible)
+       {
+           currComp = interruptible(currComp);
        }
        if (alg == 1)
        {
@@ -370,6 +1296,37 @@ public class Restaurant implements Statable, Serializable
        {
             Sorting.<MenuItem> insertionSort(allItemsArray, currComp);
        }
+       else if (alg == 4)
+       {
+            Sorting.<MenuItem> mergeSort(allItemsArray, currComp);
+       }
+       else if (alg == 5)
+       {
+            Sorting.<MenuItem> heapSort(allItemsArray, currComp);
+       }
+       else if (alg == 6)
+       {
+            Sorting.<MenuItem> timSort(allItemsArray, currComp);
+       }
+       else if (alg == 7)
+       {
+            Comparator<MenuItem> tieBreaker = field == 2 || field == 3 ? null : currComp;
+            if (field == RECENT_RATING)
+            {
+                // the key already holds the average, so only the name is left to compare
+                tieBreaker = isInterruptible ? interruptible(new MenuItemNameComparator()) : new MenuItemNameComparator();
+            }
+            Sorting.<MenuItem> keySort(allItemsArray, sortKeys(allItemsArray, field), tieBreaker);
+       }
+       else if (alg == 8 && field == RECENT_RATING)
+       {
+            // the window moves with every new rating, so there is no standing index to walk
+            Sorting.<MenuItem> timSort(allItemsArray, currComp);
+       }
+       else if (alg == 8)
+       {
+            allItemsArray = indexOrder(field);
+       }
        else
        {
             Sorting.<MenuItem> bubbleSort(allItemsArray, currComp);
@@ -382,6 +1339,58 @@ public class Restaurant implements Statable, Serializable
        }
        return result.toString();
     }
+    
+    private static Comparator<MenuItem> interruptible(final Comparator<MenuItem> comp)
+    {
+        return new Comparator<MenuItem>()
+        {
+            private int count;
+            
+            public int compare(MenuItem item1, MenuItem item2)
+            {
+                if ((++count & (INTERRUPT_CHECK - 1)) == 0 && Thread.currentThread().isInterrupted())
+                {
+                    throw new CancellationException("Sort cancelled");
+                }
+                return comp.compare(item1, item2);
+            }
+        };
+    }
+    
+    // one primitive key per item, ordered the same way as the matching comparator
+    private long[] sortKeys(MenuItem[] items, int field)
+    {
+        int toDay = getRecentEnd();
+        int fromDay = toDay - RECENT_DAYS + 1;
+        long[] keys = new long[items.length];
+        for (int i = 0; i < items.length; i++)
+        {
+            keys[i] = fieldKey(field, items[i], fromDay, toDay);
+        }
+        return keys;
+    }
+    
+    // a long whose ascending order is the field's sort order; names only order by their first
+    // four characters, so ties are left to a comparison of the whole names
+    private static long fieldKey(int field, MenuItem item, int fromDay, int toDay)
+    {
+        long key;
+        if (field == 2)
+        {
+            key = ~item.getProfitCents();
+        }
+        else if (field == 3)
+        {
+            key = ~Sorting.sortableKey(item.getAverageRating());
+        }
+        else if (field == RECENT_RATING)
+        {
+            key = ~Sorting.sortableKey(item.getAverageRating(fromDay, toDay));
+        }
+        else
+        {
+            key = Sorting.collationKey(item.getName());
+        }
+        return key;
+    }
 }
-
-
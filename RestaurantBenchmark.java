@@ -0,0 +1,350 @@
+import java.io.*;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Repeatable timings of the Restaurant hot paths at several menu sizes.  It covers:
+ *  - sort by every field and algorithm;
+ *  - loading and writing every file type, and getState;
+ *  - order and addRating throughput;
+ *  - the running totals.
+ * The fixture menus come from a fixed seed, so two runs of the same build time the same
+ * data.  Each benchmark is warmed up before it is measured.  Short operations are repeated
+ * until an iteration lasts at least 100 ms, and the median and best time per operation are
+ * reported.  Results can be saved as CSV and compared with an earlier run.
+ *
+ * This is plain Java rather than JMH because the project is compiled with javac alone and
+ * has no build tool to bring in JMH and its annotation processor.  For the steadiest numbers,
+ * run one size per JVM with -sizes, as JMH's forks would.  The 1,000,000 item menu needs
+ * about -Xmx4g.
+ *
+ * Usage: java RestaurantBenchmark [-sizes 10,1000,100000,1000000] [-only regex]
+ *                                 [-warmup n] [-iterations n] [-csv out.csv] [-baseline old.csv]
+ */
+public class RestaurantBenchmark
+{
+    private static final long SEED = 20151210L;
+    // selection, insertion and bubble sort are O(n^2), so larger menus skip them
+    private static final int QUADRATIC_LIMIT = 20000;
+    private static final long MIN_ITERATION_NANOS = 100000000L;
+    private static final int MAX_RATINGS_PER_ITEM = 10;
+
+    // read after every run so the JIT cannot drop the work being timed
+    private static volatile long sink;
+    // read through a volatile so the JIT cannot hoist a loop-invariant getter out of the batch
+    private static volatile Restaurant current;
+
+    private static int warmup = 3;
+    private static int iterations = 5;
+    private static Pattern only;
+    private static ArrayList<String> results = new ArrayList<String>();
+    private static HashMap<String, Double> baseline = new HashMap<String, Double>();
+
+    public static void main(String[] args) throws Exception
+    {
+        int[] sizes = {10, 1000, 100000, 1000000};
+        String csvFileName = null;
+        for (int i = 0; i + 1 < args.length; i += 2)
+        {
+            if (args[i].equals("-sizes"))
+            {
+                String[] tokens = args[i + 1].split(",");
+                sizes = new int[tokens.length];
+                for (int j = 0; j < tokens.length; j++)
+                {
+                    sizes[j] = Integer.parseInt(tokens[j].trim());
+                }
+            }
+            else if (args[i].equals("-only"))
+            {
+                only = Pattern.compile(args[i + 1]);
+            }
+            else if (args[i].equals("-warmup"))
+            {
+                warmup = Integer.parseInt(args[i + 1]);
+            }
+            else if (args[i].equals("-iterations"))
+            {
+                iterations = Math.max(1, Integer.parseInt(args[i + 1]));
+            }
+            else if (args[i].equals("-csv"))
+            {
+                csvFileName = args[i + 1];
+            }
+            else if (args[i].equals("-baseline"))
+            {
+                readBaseline(args[i + 1]);
+            }
+        }
+
+        File dir = java.nio.file.Files.createTempDirectory("restaurant-bench").toFile();
+        System.out.printf("%-26s %9s %12s %12s %14s %9s%n", "benchmark", "items", "median/op", "best/op", "ops/s", "vs base");
+        for (int size : sizes)
+        {
+            runAll(size, dir);
+        }
+        for (File file : dir.listFiles())
+        {
+            file.delete();
+        }
+        dir.delete();
+
+        if (csvFileName != null)
+        {
+            PrintWriter out = new PrintWriter(new FileWriter(csvFileName));
+            out.println("benchmark,items,median_ns,best_ns");
+            for (String line : results)
+            {
+                out.println(line);
+            }
+            out.close();
+        }
+    }
+
+    private interface Operation
+    {
+        long run() throws Exception;
+    }
+
+    private static void runAll(int size, File dir) throws Exception
+    {
+        final String textFile = new File(dir, "menu" + size + ".txt").getPath();
+        final String objectFile = new File(dir, "menu" + size + ".ser").getPath();
+        final String snapshotFile = new File(dir, "menu" + size + ".snap").getPath();
+        final String outFile = new File(dir, "out" + size).getPath();
+        final String[] names = writeFixture(textFile, size);
+        final Restaurant rest = new Restaurant("Bench", textFile, Restaurant.BULK_TEXT_FILE);
+        rest.writeToFile(objectFile, Restaurant.OBJECT_FILE);
+        rest.writeToFile(snapshotFile, Restaurant.SNAPSHOT_FILE);
+        current = rest;
+
+        bench("load.text", size, new Operation()
+        {
+            public long run() throws Exception
+            {
+                // the text loader echoes every line; time the parsing, not the console
+                PrintStream console = System.out;
+                System.setOut(new PrintStream(new OutputStream()
+                {
+                    public void write(int b)
+                    {
+                    }
+                }));
+                try
+                {
+                    return new Restaurant("Bench", textFile, Restaurant.TEXT_FILE).getMenuItems().size();
+                }
+                finally
+                {
+                    System.setOut(console);
+                }
+            }
+        });
+        benchLoad("load.object", size, objectFile, Restaurant.OBJECT_FILE);
+        benchLoad("load.bulk", size, textFile, Restaurant.BULK_TEXT_FILE);
+        benchLoad("load.mapped", size, textFile, Restaurant.MAPPED_TEXT_FILE);
+        benchLoad("load.snapshot", size, snapshotFile, Restaurant.SNAPSHOT_FILE);
+
+        bench("getState", size, new Operation()
+        {
+            public long run()
+            {
+                return rest.getState().length();
+            }
+        });
+        benchWrite("write.text", size, rest, outFile, Restaurant.TEXT_FILE);
+        benchWrite("write.object", size, rest, outFile, Restaurant.OBJECT_FILE);
+        benchWrite("write.snapshot", size, rest, outFile, Restaurant.SNAPSHOT_FILE);
+
+        for (int field = 1; field <= Restaurant.RECENT_RATING; field++)
+        {
+            for (int alg = 1; alg <= 8; alg++)
+            {
+                boolean isQuadratic = alg <= 3;
+                if (!isQuadratic || size <= QUADRATIC_LIMIT)
+                {
+                    final int sortField = field;
+                    final int sortAlg = alg;
+                    bench("sort.field" + field + ".alg" + alg, size, new Operation()
+                    {
+                        public long run()
+                        {
+                            return rest.sort(sortField, sortAlg).length();
+                        }
+                    });
+                }
+            }
+        }
+
+        bench("order", size, new Operation()
+        {
+            private int next;
+
+            public long run() throws RestaurantException
+            {
+                next = next + 1 < names.length ? next + 1 : 0;
+                return rest.order(names[next], 1) ? 1 : 0;
+            }
+        });
+        final MenuItemHandle[] handles = new MenuItemHandle[names.length];
+        for (int i = 0; i < names.length; i++)
+        {
+            handles[i] = rest.resolve(names[i]);
+        }
+        bench("order.handle", size, new Operation()
+        {
+            private int next;
+
+            public long run() throws RestaurantException
+            {
+                next = next + 1 < handles.length ? next + 1 : 0;
+                return rest.order(handles[next], 1) ? 1 : 0;
+            }
+        });
+        bench("addRating", size, new Operation()
+        {
+            private int next;
+
+            public long run() throws RestaurantException
+            {
+                next = next + 1 < names.length ? next + 1 : 0;
+                return rest.addRating(names[next], "Bench" + (next & 63), "10/04/2015", 1 + next % Rating.MAX_RATING) ? 1 : 0;
+            }
+        });
+        bench("getTotalProfit", size, new Operation()
+        {
+            public long run()
+            {
+                return (long) current.getTotalProfit();
+            }
+        });
+        bench("getAverageItemRating", size, new Operation()
+        {
+            public long run()
+            {
+                return (long) current.getAverageItemRating();
+            }
+        });
+    }
+
+    private static void benchLoad(String name, int size, final String fileName, final int fileType) throws Exception
+    {
+        bench(name, size, new Operation()
+        {
+            public long run() throws RestaurantException
+            {
+                return new Restaurant("Bench", fileName, fileType).getMenuItems().size();
+            }
+        });
+    }
+
+    private static void benchWrite(String name, int size, final Restaurant rest, final String fileName, final int fileType) throws Exception
+    {
+        bench(name, size, new Operation()
+        {
+            public long run() throws RestaurantException
+            {
+                rest.writeToFile(fileName, fileType);
+                return new File(fileName).length();
+            }
+        });
+    }
+
+    private static void bench(String name, int size, Operation op) throws Exception
+    {
+        if (only != null && !only.matcher(name).find())
+        {
+            return;
+        }
+        // double the repetitions until one batch is long enough to time reliably
+        int reps = 1;
+        long elapsed = time(op, reps);
+        while (elapsed < MIN_ITERATION_NANOS && reps < (1 << 30))
+        {
+            reps *= 2;
+            elapsed = time(op, reps);
+        }
+        for (int i = 0; i < warmup; i++)
+        {
+            time(op, reps);
+        }
+        double[] perOp = new double[iterations];
+        for (int i = 0; i < iterations; i++)
+        {
+            perOp[i] = (double) time(op, reps) / reps;
+        }
+        Arrays.sort(perOp);
+        double median = perOp[iterations / 2];
+        double best = perOp[0];
+        Double old = baseline.get(name + "@" + size);
+        String change = old == null ? "" : String.format("%+.1f%%", 100 * (median - old) / old);
+        System.out.printf("%-26s %9d %12s %12s %14.0f %9s%n", name, size, formatNanos(median), formatNanos(best), 1e9 / median, change);
+        results.add(name + "," + size + "," + Math.round(median) + "," + Math.round(best));
+    }
+
+    private static long time(Operation op, int reps) throws Exception
+    {
+        long result = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < reps; i++)
+        {
+            result += op.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        sink += result;
+        return elapsed;
+    }
+
+    private static String formatNanos(double nanos)
+    {
+        String result;
+        if (nanos >= 1e9)
+        {
+            result = String.format("%.2f s", nanos / 1e9);
+        }
+        else if (nanos >= 1e6)
+        {
+            result = String.format("%.2f ms", nanos / 1e6);
+        }
+        else if (nanos >= 1e3)
+        {
+            result = String.format("%.2f us", nanos / 1e3);
+        }
+        else
+        {
+            result = String.format("%.1f ns", nanos);
+        }
+        return result;
+    }
+
+    private static void readBaseline(String fileName) throws IOException
+    {
+        BufferedReader in = new BufferedReader(new FileReader(fileName));
+        String line = in.readLine(); // header
+        while ((line = in.readLine()) != null)
+        {
+            String[] fields = line.split(",");
+            if (fields.length >= 3)
+            {
+                baseline.put(fields[0] + "@" + fields[1], Double.parseDouble(fields[2]));
+            }
+        }
+        in.close();
+    }
+
+    /**
+     * Writes a menu of the given size in the text file format and returns its item names.
+     * The same size always gives the same file.
+     */
+    private static String[] writeFixture(String fileName, int size) throws IOException
+    {
+        new MenuGenerator(SEED + size).setItemCount(size).setRatingsPerItem(MenuGenerator.UNIFORM, 0, MAX_RATINGS_PER_ITEM)
+                                      .setReviewerCount(Math.max(10, size / 4)).writeTextFile(fileName);
+        String[] names = new String[size];
+        for (int i = 0; i < size; i++)
+        {
+            names[i] = MenuGenerator.getItemName(i);
+        }
+        return names;
+    }
+}
@@ -1,17 +1,39 @@
+import java.io.IOException;
 import java.util.ArrayList;
 import java.text.*;
+import utilities.DateCodec;
+import utilities.Money;
 public class RestaurantDriver
 {
     
     private static Keyboard key = Keyboard.getKeyboard();
     private static final DecimalFormat FMT = new DecimalFormat("$#,##0.00");
+    private static final int NAMES_PER_PAGE = 50;
     
     public static void main(String[] args)
     {
         Restaurant theRestaurant = null;
         try
         {
-            if (args.length >= 3)
+            if (args.length >= 3 && args[2].equalsIgnoreCase("bulk"))
+            {
+                theRestaurant = new Restaurant(args[0], args[1], Restaurant.BULK_TEXT_FILE);
+                System.out.println(theRestaurant.getLoadReport());
+            }
+            else if (args.length >= 3 && args[2].equalsIgnoreCase("mapped"))
+            {
+                theRestaurant = new Restaurant(args[0], args[1], Restaurant.MAPPED_TEXT_FILE);
+                System.out.println(theRestaurant.getLoadReport());
+            }
+            else if (args.length >= 3 && args[2].equalsIgnoreCase("snapshot"))
+            {
+                theRestaurant = new Restaurant(args[0], args[1], Restaurant.SNAPSHOT_FILE);
+            }
+            else if (args.length >= 4 && args[2].equalsIgnoreCase("journal"))
+            {
+                theRestaurant = new Restaurant(args[0], args[1], args[3]);
+            }
+            else if (args.length >= 3)
             {
                 theRestaurant = new Restaurant(args[0], args[1], Boolean.parseBoolean(args[2]));
             }
@@ -25,7 +47,8 @@ public class RestaurantDriver
             }
             else
             {
-                System.out.println("Usage: java RestaurantDriver restName fileName isObject");
+                System.out.println("Usage: java RestaurantDriver restName fileName isObject|bulk|mapped|snapshot");
+                System.out.println("       java RestaurantDriver restName snapshotFile journal journalFile");
                 return;
             }
         }
@@ -42,7 +65,7 @@ public class RestaurantDriver
         {
             if (choice.equalsIgnoreCase("s"))
             {
-                System.out.println(theRestaurant);
+                doStatus(theRestaurant);
             }
             else if (choice.equals("+"))
             {
@@ -68,10 +91,26 @@ public class RestaurantDriver
             {
                 doNames(theRestaurant);
             }
+            else if (choice.equalsIgnoreCase("p"))
+            {
+                doItemPages(theRestaurant);
+            }
             else if (choice.equalsIgnoreCase("r"))
             {
                 doRateItem(theRestaurant);
             }
+            else if (choice.equalsIgnoreCase("e"))
+            {
+                doReviewsByDate(theRestaurant);
+            }
+            else if (choice.equalsIgnoreCase("h"))
+            {
+                doReviewerHistory(theRestaurant);
+            }
+            else if (choice.equalsIgnoreCase("l"))
+            {
+                doRecentRatings(theRestaurant);
+            }
             else if (choice.equalsIgnoreCase("o"))
             {
                 doOrderItem(theRestaurant);
@@ -92,30 +131,112 @@ public class RestaurantDriver
             {
                 doSortWork(theRestaurant);
             }
+            else if (choice.equalsIgnoreCase("t"))
+            {
+                doTopItems(theRestaurant);
+            }
+            else if (choice.equalsIgnoreCase("b"))
+            {
+                doOrderTickets(theRestaurant);
+            }
+            else if (choice.equalsIgnoreCase("c") && theRestaurant.isJournaled())
+            {
+                doCheckpoint(theRestaurant);
+            }
             else
             {
                 System.out.println("Invalid choice -- please try again!");
             }
             choice = menu();
         }
+        try
+        {
+            theRestaurant.closeJournal();
+        }
+        catch (RestaurantException re)
+        {
+            System.out.println(re.getMessage());
+            System.out.println("Journal closed unsuccessfully - recent changes may be lost.");
+        }
         System.out.println("Thanks for using RestaurantDriver beta version!!!");
     }
         
     private static String menu()
     {
         return key.readString("Enter your choice: S for status, + for add restaurant item, - for remove restaurant item, " +
-                             "N for names of restaurant items, A for activate, D for discontinue, U for update price,\r\n" +
-                             "R for rating, O for order, V for average rating, $ for profit, * for sort, W for write file, Q for quit. ");
+                             "N for names of restaurant items, P for pages of items, A for activate, D for discontinue, U for update price,\r\n" +
+                             "R for rating, E for reviews by date, H for reviewer history, L for recent ratings report, O for order, B for batch order tickets,\r\n" +
+                             "V for average rating, $ for profit, * for sort, T for top N items, W for write file, C for checkpoint (journaled only),\r\n" +
+                             "Q for quit. ");
+    }
+    
+    private static void doStatus(Restaurant rest)
+    {
+        try
+        {
+            // straight to the console an item at a time rather than as one String
+            rest.writeTo(System.out);
+            System.out.println();
+        }
+        catch (IOException ioe)
+        {
+            System.out.println(ioe.getMessage());
+        }
     }
     
     private static void doNames(Restaurant rest)
     {
-        ArrayList<String> names = rest.getAllItemNames();
         System.out.println("The restaurant item names are as follows:");
-        for (String name: names)
+        showPages(rest, Restaurant.UNSORTED, NAMES_PER_PAGE, true);
+    }
+    
+    private static void doItemPages(Restaurant rest)
+    {
+        int sortField;
+        do
         {
-            System.out.println(name);
-        }        
+            System.out.println("0. menu order (fastest)");
+            showSortFieldMenu();          
+            sortField = key.readInt("Enter the sort field: ");
+        } while (sortField < 0 || sortField > 4);
+        int pageSize = key.readInt("How many items per page? ");
+        showPages(rest, sortField, pageSize, false);
+    }
+    
+    // prints a page at a time, fetching the next one only when asked for
+    private static void showPages(Restaurant rest, int field, int pageSize, boolean isNames)
+    {
+        try
+        {
+            MenuPage page = rest.getPage(field, pageSize);
+            boolean isMore = true;
+            while (isMore)
+            {
+                if (isNames)
+                {
+                    for (String name: page.getNames())
+                    {
+                        System.out.println(name);
+                    }
+                }
+                else
+                {
+                    for (MenuItem item: page.getItems())
+                    {
+                        System.out.println(item);
+                    }
+                }
+                isMore = page.hasNextPage() && key.readString("Next page? (y/anything else): ").equalsIgnoreCase("Y");
+                if (isMore)
+                {
+                    page = rest.getNextPage(page.getNextToken(), pageSize);
+                }
+            }
+        }
+        catch (RestaurantException re)
+        {
+            System.out.println(re.getMessage());
+        }
     }
     
     private static void doAddItem(Restaurant rest)
@@ -161,12 +282,20 @@ public class RestaurantDriver
     {
         System.out.println("Processing remove...");
         String name = key.readString("Please enter the name of the item to be removed from the menu. ");
-        if (rest.removeFromMenu(name))
+        try
         {
-            System.out.println(name + " successfully removed from menu.");
+            if (rest.removeFromMenu(name))
+            {
+                System.out.println(name + " successfully removed from menu.");
+            }
+            else
+            {
+                System.out.println(name + " unsuccessfully removed from menu.");
+            }
         }
-        else
+        catch (RestaurantException re)
         {
+            System.out.println(re.getMessage());
             System.out.println(name + " unsuccessfully removed from menu.");
         }
     }
@@ -175,26 +304,34 @@ public class RestaurantDriver
     {
         System.out.println("Processing activate...");
         String choice = key.readString("Activate all? (y/n): ");
-        if (choice.equalsIgnoreCase("n"))
+        try
         {
-            String name = key.readString("Please enter the name of the item to be activated on the menu. ");
-            if (rest.activate(name))
+            if (choice.equalsIgnoreCase("n"))
+            {
+                String name = key.readString("Please enter the name of the item to be activated on the menu. ");
+                if (rest.activate(name))
+                {
+                    System.out.println(name + " successfully activated on menu.");
+                }
+                else
+                {
+                    System.out.println(name + " unsuccessfully activated on menu.");
+                }
+            }
+            else if (choice.equalsIgnoreCase("y"))
             {
-                System.out.println(name + " successfully activated on menu.");
+                rest.activate();
+                System.out.println("Activated all items on menu.");
             }
             else
             {
-                System.out.println(name + " unsuccessfully activated on menu.");
+                System.out.println("Invalid choice.  Need y or n.");
             }
         }
-        else if (choice.equalsIgnoreCase("y"))
-        {
-            rest.activate();
-            System.out.println("Activated all items on menu.");
-        }
-        else
+        catch (RestaurantException re)
         {
-            System.out.println("Invalid choice.  Need y or n.");
+            System.out.println(re.getMessage());
+            System.out.println("Nothing activated on menu.");
         }
     }
     
@@ -202,26 +339,34 @@ public class RestaurantDriver
     {
         System.out.println("Processing discontinue...");
         String choice = key.readString("Discontinue all? (y/n): ");
-        if (choice.equalsIgnoreCase("n"))
+        try
         {
-            String name = key.readString("Please enter the name of the item to be discontinued on the menu. ");
-            if (rest.discontinue(name))
+            if (choice.equalsIgnoreCase("n"))
+            {
+                String name = key.readString("Please enter the name of the item to be discontinued on the menu. ");
+                if (rest.discontinue(name))
+                {
+                    System.out.println(name + " successfully discontinued on menu.");
+                }
+                else
+                {
+                    System.out.println(name + " unsuccessfully discontinued on menu.");
+                }
+            }
+            else if (choice.equalsIgnoreCase("y"))
             {
-                System.out.println(name + " successfully discontinued on menu.");
+                rest.discontinue();
+                System.out.println("Discontinued all items on menu.");
             }
             else
             {
-                System.out.println(name + " unsuccessfully discontinued on menu.");
+                System.out.println("Invalid choice. Need y or n.");
             }
         }
-        else if (choice.equalsIgnoreCase("y"))
-        {
-            rest.discontinue();
-            System.out.println("Discontinued all items on menu.");
-        }
-        else
+        catch (RestaurantException re)
         {
-            System.out.println("Invalid choice. Need y or n.");
+            System.out.println(re.getMessage());
+            System.out.println("Nothing discontinued on menu.");
         }
     }
     
@@ -236,32 +381,40 @@ public class RestaurantDriver
             isWholesale = true;
         }
         String choice = key.readString("Update all prices? (y/n): ");
-        if (choice.equalsIgnoreCase("n"))
+        try
         {
-            String name = key.readString("Please enter the name of the item to have its price changed. ");
-            if (rest.updatePrice(isWholesale, name, percent))
+            if (choice.equalsIgnoreCase("n"))
             {
-                System.out.println("Price for " + name + " successfully changed.");
+                String name = key.readString("Please enter the name of the item to have its price changed. ");
+                if (rest.updatePrice(isWholesale, name, percent))
+                {
+                    System.out.println("Price for " + name + " successfully changed.");
+                }
+                else
+                {
+                    System.out.println("Price for " + name + " unsuccessfully changed.");
+                }
             }
-            else
-            {
-                System.out.println("Price for " + name + " unsuccessfully changed.");
-            }
-        }
-        else if (choice.equalsIgnoreCase("y"))
-        {
-            if (rest.updatePrice(isWholesale, percent))
+            else if (choice.equalsIgnoreCase("y"))
             {
-                System.out.println("Successfully changed prices for all items on menu.");
+                if (rest.updatePrice(isWholesale, percent))
+                {
+                    System.out.println("Successfully changed prices for all items on menu.");
+                }
+                else
+                {
+                    System.out.println("Unsuccessfully changed prices for all items on menu.");
+                }
             }
             else
             {
-                System.out.println("Unsuccessfully changed prices for all items on menu.");
+                System.out.println("Invalid choice. Need y or n.");
             }
         }
-        else
+        catch (RestaurantException re)
         {
-            System.out.println("Invalid choice. Need y or n.");
+            System.out.println(re.getMessage());
+            System.out.println("Prices unsuccessfully changed.");
         }
     }
     
@@ -296,27 +449,107 @@ public class RestaurantDriver
         System.out.println("Processing item ordering...");
         String itemName = key.readString("Please enter the item name. ");
         int numOrders = key.readInt("Please enter the number of orders. ");
-        boolean success = rest.order(itemName, numOrders);
-        if (success)
+        try
         {
-            System.out.println(numOrders + " of " + itemName + " successfully processed.");
+            boolean success = rest.order(itemName, numOrders);
+            if (success)
+            {
+                System.out.println(numOrders + " of " + itemName + " successfully processed.");
+            }
+            else
+            {
+                System.out.println(numOrders + " of " + itemName + " unsuccessfully processed.");
+            }
         }
-        else
+        catch (RestaurantException re)
         {
+            System.out.println(re.getMessage());
             System.out.println(numOrders + " of " + itemName + " unsuccessfully processed.");
         }
     }
     
+    private static void doOrderTickets(Restaurant rest)
+    {
+        System.out.println("Processing order tickets...");
+        String fileName = key.readString("Please enter the name of the ticket file. ");
+        int numTickets = 0;
+        int numRejected = 0;
+        int lineNumber = 0;
+        long start = System.nanoTime();
+        FileIO br = null;
+        try
+        {
+            br = new FileIO(fileName, FileIO.FOR_READING);
+            String line = br.readLine();
+            while (line != null)
+            {
+                lineNumber++;
+                if (!line.trim().equals(""))
+                {
+                    numTickets++;
+                    try
+                    {
+                        OrderTicket ticket = OrderTicket.parse(line);
+                        int[] status = rest.orderBatch(ticket);
+                        boolean ordered = true;
+                        for (int i = 0; i < status.length; i++)
+                        {
+                            if (status[i] != OrderTicket.ORDERED && status[i] != OrderTicket.NOT_APPLIED)
+                            {
+                                System.out.println("Ticket on line " + lineNumber + " rejected: " + ticket.getItemName(i) + " " + OrderTicket.describe(status[i]));
+                            }
+                            ordered = ordered && status[i] == OrderTicket.ORDERED;
+                        }
+                        if (!ordered)
+                        {
+                            numRejected++;
+                        }
+                    }
+                    catch (IllegalArgumentException iae)
+                    {
+                        System.out.println("Ticket on line " + lineNumber + " rejected: " + iae.getMessage());
+                        numRejected++;
+                    }
+                }
+                line = br.readLine();
+            }
+        }
+        catch (FileIOException fioe)
+        {
+            System.out.println(fioe.getMessage());
+            System.out.println("Ticket file processed unsuccessfully.");
+        }
+        catch (RestaurantException re)
+        {
+            // the journal failed, so no later ticket could be ordered either
+            System.out.println(re.getMessage());
+            System.out.println("Ticket file processed unsuccessfully.");
+        }
+        finally
+        {
+            if (br != null)
+            {
+                br.close();
+            }
+        }
+        System.out.println((numTickets - numRejected) + " of " + numTickets + " tickets ordered in " +
+                           String.format("%.3f", (System.nanoTime() - start) / 1e9) + " s.");
+    }
+    
     private static void doProfit(Restaurant rest)
     {
         System.out.println("Processing profit...");
-        System.out.println("The total profit of restaurant " + rest.getName() + " is " + FMT.format(rest.getTotalProfit()) + ".");
+        System.out.println("The total profit of restaurant " + rest.getName() + " is " + Money.format(rest.getTotalProfitCents()) + ".");
     }
     
     private static void doAverageItemRating(Restaurant rest)
     {
         System.out.println("Processing average item rating...");
         System.out.println("The average rating for menu items at restaurant " + rest.getName() + " is " + FMT.format(rest.getAverageItemRating()).substring(1) + ".");
+        RatingHistogram histogram = rest.getRatingHistogram();
+        System.out.println("Ratings by score (" + histogram.getTotal() + " in all): " + histogram);
+        System.out.println("Median " + histogram.getMedian() + ", mode " + histogram.getMode() + ", " +
+                           String.format("%.1f", 100 * histogram.getShare(Rating.MAX_RATING)) + "% " + Rating.MAX_RATING + "-star.");
     }
     
     private static void doWriteFile(Restaurant rest)
@@ -324,10 +557,18 @@ public class RestaurantDriver
         System.out.println("Processing write file...");
         String fileName = key.readString("Please enter the name of the output file.");
         boolean isObject = key.readString("Is the file to be an object file? (y/anything else): ").equalsIgnoreCase("Y") ? true : false;
+        boolean isSnapshot = !isObject && key.readString("Is the file to be a binary snapshot? (y/anything else): ").equalsIgnoreCase("Y");
         try
         {
-            rest.writeToFile(fileName, isObject);
-            System.out.println((isObject ? "Object" : "Text") + " file " + fileName + " written successfully.");
+            if (isSnapshot)
+            {
+                rest.writeToFile(fileName, Restaurant.SNAPSHOT_FILE);
+            }
+            else
+            {
+                rest.writeToFile(fileName, isObject);
+            }
+            System.out.println((isObject ? "Object" : isSnapshot ? "Snapshot" : "Text") + " file " + fileName + " written successfully.");
         }
         catch (RestaurantException re)
         {
@@ -336,6 +577,21 @@ public class RestaurantDriver
         }        
     }
     
+    private static void doCheckpoint(Restaurant rest)
+    {
+        System.out.println("Processing checkpoint...");
+        try
+        {
+            rest.checkpoint();
+            System.out.println("Snapshot written and journal emptied successfully.");
+        }
+        catch (RestaurantException re)
+        {
+            System.out.println(re.getMessage());
+            System.out.println("Checkpoint unsuccessful.");
+        }
+    }
+    
     private static void doSortWork(Restaurant rest)
     {
         System.out.println("Processing sort...");
@@ -344,27 +600,102 @@ public class RestaurantDriver
         {
             showSortFieldMenu();          
             sortField = key.readInt("Enter the sort field: ");
-        } while (sortField < 1 || sortField > 3);
+        } while (sortField < 1 || sortField > 4);
         int sortAlg;
         do
         {
             showSortAlgorithmMenu();
             sortAlg = key.readInt("Enter the algorithm number: ");
-        } while (sortAlg < 1 || sortAlg > 2);
+        } while (sortAlg < 1 || sortAlg > 8);
         String result = rest.sort(sortField, sortAlg);
         System.out.println("Sort results:\n" + result);
     }
     
+    private static void doReviewsByDate(Restaurant rest)
+    {
+        System.out.println("Processing reviews by date...");
+        String itemName = key.readString("Please enter the item name. ");
+        String fromDate = key.readString("Please enter the first date (mm/dd/yyyy). ");
+        String toDate = key.readString("Please enter the last date (mm/dd/yyyy). ");
+        try
+        {
+            String reviews = rest.getReviews(itemName, fromDate, toDate);
+            if (reviews == null)
+            {
+                System.out.println("Item " + itemName + " not found.");
+            }
+            else
+            {
+                System.out.println("Reviews of " + itemName + " from " + fromDate + " to " + toDate + ":\r\n" + reviews);
+            }
+        }
+        catch (RestaurantException re)
+        {
+            System.out.println(re.getMessage());
+        }
+    }
+    
+    private static void doReviewerHistory(Restaurant rest)
+    {
+        String reviewerName = key.readString("Please enter the reviewer name. ");
+        int count = rest.getNumRatingsBy(reviewerName);
+        System.out.println(reviewerName + " has written " + count + (count == 1 ? " rating." : " ratings."));
+        System.out.print(rest.getRatingsBy(reviewerName));
+    }
+    
+    private static void doRecentRatings(Restaurant rest)
+    {
+        System.out.println("Processing recent ratings...");
+        int lastDay = rest.getLastRatingDay();
+        String defaultEnd = DateCodec.format(lastDay == DateCodec.INVALID ? DateCodec.today() : lastDay);
+        String endDate = key.readString("Please enter the last date (mm/dd/yyyy), or nothing for " + defaultEnd + ". ");
+        int numDays = key.readInt("Please enter the number of days. ");
+        try
+        {
+            System.out.print(rest.getRecentRatingReport(endDate.trim().equals("") ? defaultEnd : endDate, numDays));
+        }
+        catch (RestaurantException re)
+        {
+            System.out.println(re.getMessage());
+        }
+    }
+    
+    private static void doTopItems(Restaurant rest)
+    {
+        System.out.println("Processing top items...");
+        int sortField;
+        do
+        {
+            showSortFieldMenu();          
+            sortField = key.readInt("Enter the sort field: ");
+        } while (sortField < 1 || sortField > 4);
+        int count = key.readInt("How many items? ");
+        boolean isBottom = key.readString("Bottom items instead of top? (y/anything else): ").equalsIgnoreCase("Y");
+        ArrayList<MenuItem> items = isBottom ? rest.bottomK(sortField, count) : rest.topK(sortField, count);
+        System.out.println((isBottom ? "Bottom " : "Top ") + items.size() + " items:");
+        for (MenuItem item: items)
+        {
+            System.out.println(item);
+        }
+    }
+    
     private static void showSortFieldMenu()
     {
         System.out.println("1. item name (asc)\n" +
            "2. item profit (desc)\n" +
-           "3. item average rating (desc)\n");
+           "3. item average rating (desc)\n" +
+           "4. item recent rating, last " + Restaurant.RECENT_DAYS + " days (desc)\n");
     }  
     
     private static void showSortAlgorithmMenu()
     {
         System.out.println("1. Selection Sort\n" +
-           "2. Insertion Sort\n");
+           "2. Insertion Sort\n" +
+           "3. Bubble Sort\n" +
+           "4. Merge Sort\n" +
+           "5. Heap Sort\n" +
+           "6. Tim Sort\n" +
+           "7. Key Sort (precomputed keys)\n" +
+           "8. Sorted Index (maintained order)\n");
     }
 }
@@ -14,6 +14,12 @@ import java.awt.event.*;
 import javax.swing.*;
 import java.text.*;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import utilities.DateCodec;
+import utilities.Money;
 
 public class RestaurantGUI extends CenterFrame {
 
@@ -55,6 +61,7 @@ public class RestaurantGUI extends CenterFrame {
    private JLabel priceChangeLbl;
    private JLabel sortFieldLbl;
    private JLabel sortAlgorithmLbl;
+   private JLabel numItemsLbl;
 
    private JTextField reviewerName;
    private JTextField reviewerRating;
@@ -68,6 +75,7 @@ public class RestaurantGUI extends CenterFrame {
    private JTextField priceChange;
    private JTextField sortField;
    private JTextField sortAlgorithm;
+   private JTextField numItems;
 
    private JButton statusBtn;
    private JButton allItemNamesBtn;
@@ -83,16 +91,53 @@ public class RestaurantGUI extends CenterFrame {
    private JButton profitBtn;
    private JButton avgRatingBtn;
    private JButton writeFileBtn;
+   private JButton topItemsBtn;
+   private JButton bottomItemsBtn;
+   private JButton recentRatingsBtn;
+   private JButton itemPageBtn;
+   private JButton nextPageBtn;
 
    private JComboBox categoryCB;
 
    private JCheckBox allItemsCB;
    private JCheckBox wholesalePriceCB;
    private JCheckBox objectFileCB;
+   private JCheckBox snapshotFileCB;
 
-   private JTextArea outputTextArea;
+   private OutputConsole outputTextArea;
    private JScrollPane outputScrollPane;
 
+   private MenuTableModel menuModel;
+   private JTable menuTable;
+
+   private JPanel jobPanel;
+   private JLabel jobLbl;
+   private JProgressBar progressBar;
+   private JButton cancelBtn;
+
+   // commands that only read the restaurant, so stopping them part way changes nothing
+   private static final String[] CANCELLABLE = {"Status", "All Item Names", "Sort", "Average Rating",
+                                                "Top N", "Bottom N", "Recent Ratings", "Item Page", "Next Page"};
+
+   // Every Restaurant call runs on this one thread in the order the buttons were pressed, so
+   // the Restaurant (which is not thread safe) sees one call at a time and mutations apply in
+   // order, while the event thread stays free to repaint.
+   private ExecutorService restaurantQueue = Executors.newSingleThreadExecutor();
+   // queued and running jobs, oldest first; used only on the event thread
+   private ArrayDeque<RestaurantJob> pendingJobs = new ArrayDeque<RestaurantJob>();
+   // set by the load job; like the page fields below, used only on the queue thread
+   private Restaurant restaurant;
+   private RestaurantJob runningJob;
+   private int tableSortField = 1;
+
+   private static final int NAMES_PER_PAGE = 50;
+   private static final int CONSOLE_LINES = 5000;
+   private static final int CONSOLE_CHARS = 1 << 20;
+   // the listing Next Page continues, or null once its last page has been shown
+   private MenuPage currentPage;
+   private int currentPageSize;
+   private boolean isNamePage;
+
 
    /**
     * The constructor for the graphical interface.
@@ -103,24 +148,36 @@ public class RestaurantGUI extends CenterFrame {
     * @param isObject Is the file and object or a text?
     * @return None.
     */
-   public RestaurantGUI(int width, int height, String name, String fileName, Boolean isObject) {
+   public RestaurantGUI(int width, int height, final String name, final String fileName, final Boolean isObject) {
       super(width, height, name);
-      Restaurant theRestaurant;
-      // Create Restaurant Object to manipulate!
-      try {
-         theRestaurant = new Restaurant(name, fileName, isObject);
-      } catch (RestaurantException re) {
-         System.out.println(re.getMessage());
-         System.out.println("Problem creating Restaurant - exiting program.");
-         return;
-      }
 
       setResizable(true);
-      setUp(width, height, theRestaurant);
+      setUp(width, height);
+      setButtonsEnabled(false);
       setVisible(true);
+
+      // Create Restaurant Object to manipulate, with the window already up!
+      submit(new RestaurantJob("Load", null) {
+         protected void work() throws RestaurantException {
+            print("Loading " + fileName + "...\n");
+            restaurant = new Restaurant(name, fileName, isObject);
+            print("Loaded " + restaurant.getMenuItems().size() + " items.\n\n");
+            loadTable(restaurant, tableSortField);
+         }
+
+         protected void done() {
+            super.done();
+            if (hasSucceeded()) {
+               setButtonsEnabled(true);
+            } else {
+               System.out.println("Problem creating Restaurant - close the window to exit.");
+               outputTextArea.append("Problem creating Restaurant - close the window to exit.\n");
+            }
+         }
+      });
    }
 
-   private void setUp(int width, int height, Restaurant theRestaurant) {
+   private void setUp(int width, int height) {
       setBackground(Color.white);
 
       // setup GUI elements
@@ -131,7 +188,7 @@ public class RestaurantGUI extends CenterFrame {
       add(inputPanel, BorderLayout.WEST);
 
       // input panel
-      EasyGridBag inputPanelBag = new EasyGridBag(15, 2, inputPanel);
+      EasyGridBag inputPanelBag = new EasyGridBag(16, 2, inputPanel);
       inputPanelBag.setColumnWeight(1, 1.0);
       inputPanelBag.setColumnWeight(2, 10.0);
       inputPanel.setLayout(inputPanelBag);
@@ -149,6 +206,7 @@ public class RestaurantGUI extends CenterFrame {
       priceChangeLbl = new JLabel("% Price Change");
       sortFieldLbl = new JLabel("Sort Field");
       sortAlgorithmLbl = new JLabel("Sort Algorithm");
+      numItemsLbl = new JLabel("# Items (Top/Bottom N)");
 
       reviewerName = new JTextField();
       reviewerName.setPreferredSize(new Dimension(150, 24));
@@ -186,6 +244,9 @@ public class RestaurantGUI extends CenterFrame {
       sortAlgorithm = new JTextField();
       sortAlgorithm.setPreferredSize(new Dimension(150, 24));
 
+      numItems = new JTextField();
+      numItems.setPreferredSize(new Dimension(150, 24));
+
       String categories[] = {"MAIN", "DESSERT", "SIDE", "DRINK"};
 
       categoryCB = new JComboBox(categories);
@@ -194,6 +255,7 @@ public class RestaurantGUI extends CenterFrame {
       allItemsCB = new JCheckBox("All Items");
       wholesalePriceCB = new JCheckBox("Wholesale Price");
       objectFileCB = new JCheckBox("Object File");
+      snapshotFileCB = new JCheckBox("Snapshot File");
 
       inputPanelBag.fillCellAlignWithinCell(1, 1, GridBagConstraints.WEST, reviewerNameLbl);
       inputPanelBag.fillCellAlignWithinCell(2, 1, GridBagConstraints.WEST, reviewerRatingLbl);
@@ -208,6 +270,7 @@ public class RestaurantGUI extends CenterFrame {
       inputPanelBag.fillCellAlignWithinCell(11, 1, GridBagConstraints.WEST, priceChangeLbl);
       inputPanelBag.fillCellAlignWithinCell(12, 1, GridBagConstraints.WEST, sortFieldLbl);
       inputPanelBag.fillCellAlignWithinCell(13, 1, GridBagConstraints.WEST, sortAlgorithmLbl);
+      inputPanelBag.fillCellAlignWithinCell(14, 1, GridBagConstraints.WEST, numItemsLbl);
 
       inputPanelBag.fillCellAlignWithinCell(1, 2, GridBagConstraints.WEST, reviewerName);
       inputPanelBag.fillCellAlignWithinCell(2, 2, GridBagConstraints.WEST, reviewerRating);
@@ -222,64 +285,114 @@ public class RestaurantGUI extends CenterFrame {
       inputPanelBag.fillCellAlignWithinCell(11, 2, GridBagConstraints.WEST, priceChange);
       inputPanelBag.fillCellAlignWithinCell(12, 2, GridBagConstraints.WEST, sortField);
       inputPanelBag.fillCellAlignWithinCell(13, 2, GridBagConstraints.WEST, sortAlgorithm);
+      inputPanelBag.fillCellAlignWithinCell(14, 2, GridBagConstraints.WEST, numItems);
 
-      inputPanelBag.fillCellAlignWithinCell(14, 1, GridBagConstraints.WEST, allItemsCB);
-      inputPanelBag.fillCellAlignWithinCell(14, 2, GridBagConstraints.WEST, wholesalePriceCB);
-      inputPanelBag.fillCellAlignWithinCell(15, 1, GridBagConstraints.WEST, objectFileCB);
+      inputPanelBag.fillCellAlignWithinCell(15, 1, GridBagConstraints.WEST, allItemsCB);
+      inputPanelBag.fillCellAlignWithinCell(15, 2, GridBagConstraints.WEST, wholesalePriceCB);
+      inputPanelBag.fillCellAlignWithinCell(16, 1, GridBagConstraints.WEST, objectFileCB);
+      inputPanelBag.fillCellAlignWithinCell(16, 2, GridBagConstraints.WEST, snapshotFileCB);
 
-      // scroll panel
-      outputTextArea = new JTextArea(30, 75);
-      outputTextArea.setEditable(false);
+      // scroll panel: bounded and updated once a frame, so a long session cannot slow it down
+      outputTextArea = new OutputConsole(30, 75, CONSOLE_LINES, CONSOLE_CHARS);
       JScrollPane outputScrollPane = new JScrollPane(outputTextArea);
+      new SmartScroller(outputScrollPane);
 
       outputScrollPane.setVerticalScrollBarPolicy(ScrollPaneConstants.VERTICAL_SCROLLBAR_ALWAYS);
       add(outputScrollPane, BorderLayout.EAST);
 
+      // menu table: JTable paints only the rows in view, from rows copied on the restaurant queue
+      menuModel = new MenuTableModel();
+      menuTable = new JTable(menuModel);
+      menuTable.setPreferredScrollableViewportSize(new Dimension(560, 400));
+      menuTable.setFillsViewportHeight(true);
+      menuTable.getTableHeader().setToolTipText("Click Name, Profit or Avg Rating to sort");
+      menuTable.getTableHeader().addMouseListener(new MouseAdapter() {
+         public void mouseClicked(MouseEvent e) {
+            int column = menuTable.convertColumnIndexToModel(menuTable.columnAtPoint(e.getPoint()));
+            final int field = menuModel.getSortField(column);
+            if (field != 0 && statusBtn.isEnabled()) {
+               submit(new RestaurantJob("Sort Table", null) {
+                  protected void work() {
+                     loadTable(restaurant, field);
+                  }
+               });
+            }
+         }
+      });
+      add(new JScrollPane(menuTable), BorderLayout.CENTER);
+
+      // job panel: what the restaurant queue is doing, and a way to stop it
+      jobPanel = new JPanel();
+      add(jobPanel, BorderLayout.NORTH);
+      jobLbl = new JLabel("Ready");
+      progressBar = new JProgressBar();
+      cancelBtn = new JButton("Cancel");
+      cancelBtn.addActionListener(new ButtonListener());
+      cancelBtn.setEnabled(false);
+      jobPanel.add(jobLbl);
+      jobPanel.add(progressBar);
+      jobPanel.add(cancelBtn);
+
       // button panel
-      EasyGridBag buttonPanelBag = new EasyGridBag(1, 15, buttonPanel);
+      EasyGridBag buttonPanelBag = new EasyGridBag(1, 19, buttonPanel);
       buttonPanel.setLayout(buttonPanelBag);
 
       statusBtn = new JButton("Status");
-      statusBtn.addActionListener(new ButtonListener(theRestaurant));
+      statusBtn.addActionListener(new ButtonListener());
 
       allItemNamesBtn = new JButton("All Item Names");
-      allItemNamesBtn.addActionListener(new ButtonListener(theRestaurant));
+      allItemNamesBtn.addActionListener(new ButtonListener());
 
       sortBtn = new JButton("Sort");
-      sortBtn.addActionListener(new ButtonListener(theRestaurant));
+      sortBtn.addActionListener(new ButtonListener());
 
       helpBtn = new JButton("Help");
-      helpBtn.addActionListener(new ButtonListener(theRestaurant));
+      helpBtn.addActionListener(new ButtonListener());
 
       addBtn = new JButton("+");
-      addBtn.addActionListener(new ButtonListener(theRestaurant));
+      addBtn.addActionListener(new ButtonListener());
 
       removeBtn = new JButton("-");
-      removeBtn.addActionListener(new ButtonListener(theRestaurant));
+      removeBtn.addActionListener(new ButtonListener());
 
       activateBtn = new JButton("Activate");
-      activateBtn.addActionListener(new ButtonListener(theRestaurant));
+      activateBtn.addActionListener(new ButtonListener());
 
       discontinueBtn = new JButton("Discontinue");
-      discontinueBtn.addActionListener(new ButtonListener(theRestaurant));
+      discontinueBtn.addActionListener(new ButtonListener());
 
       orderBtn = new JButton("Order");
-      orderBtn.addActionListener(new ButtonListener(theRestaurant));
+      orderBtn.addActionListener(new ButtonListener());
 
       rateItemBtn = new JButton("Rate Item");
-      rateItemBtn.addActionListener(new ButtonListener(theRestaurant));
+      rateItemBtn.addActionListener(new ButtonListener());
 
       updatePriceBtn = new JButton("Update Price");
-      updatePriceBtn.addActionListener(new ButtonListener(theRestaurant));
+      updatePriceBtn.addActionListener(new ButtonListener());
 
       profitBtn = new JButton("Profit");
-      profitBtn.addActionListener(new ButtonListener(theRestaurant));
+      profitBtn.addActionListener(new ButtonListener());
 
       avgRatingBtn = new JButton("Average Rating");
-      avgRatingBtn.addActionListener(new ButtonListener(theRestaurant));
+      avgRatingBtn.addActionListener(new ButtonListener());
 
       writeFileBtn = new JButton("Write File");
-      writeFileBtn.addActionListener(new ButtonListener(theRestaurant));
+      writeFileBtn.addActionListener(new ButtonListener());
+
+      topItemsBtn = new JButton("Top N");
+      topItemsBtn.addActionListener(new ButtonListener());
+
+      bottomItemsBtn = new JButton("Bottom N");
+      bottomItemsBtn.addActionListener(new ButtonListener());
+
+      recentRatingsBtn = new JButton("Recent Ratings");
+      recentRatingsBtn.addActionListener(new ButtonListener());
+
+      itemPageBtn = new JButton("Item Page");
+      itemPageBtn.addActionListener(new ButtonListener());
+
+      nextPageBtn = new JButton("Next Page");
+      nextPageBtn.addActionListener(new ButtonListener());
 
       buttonPanelBag.fillCellCenterWithinCell(1, 1, statusBtn);
       buttonPanelBag.fillCellCenterWithinCell(1, 2, allItemNamesBtn);
@@ -295,149 +408,504 @@ public class RestaurantGUI extends CenterFrame {
       buttonPanelBag.fillCellCenterWithinCell(1, 12, profitBtn);
       buttonPanelBag.fillCellCenterWithinCell(1, 13, avgRatingBtn);
       buttonPanelBag.fillCellCenterWithinCell(1, 14, writeFileBtn);
+      buttonPanelBag.fillCellCenterWithinCell(1, 15, topItemsBtn);
+      buttonPanelBag.fillCellCenterWithinCell(1, 16, bottomItemsBtn);
+      buttonPanelBag.fillCellCenterWithinCell(1, 17, recentRatingsBtn);
+      buttonPanelBag.fillCellCenterWithinCell(1, 18, itemPageBtn);
+      buttonPanelBag.fillCellCenterWithinCell(1, 19, nextPageBtn);
 
       pack();
    }
 
    /**
-    * Button action listener class.
+    * Button action listener class.  Help and Cancel are answered right away; every other
+    * button reads the input fields here on the event thread and queues its work as a job.
     */
    private class ButtonListener implements ActionListener {
-         private Restaurant theRestaurant;
-
-         public ButtonListener(Restaurant theRestaurant) {
-            this.theRestaurant = theRestaurant;
-         }
          public void actionPerformed(ActionEvent e) {
             String eventCommand = e.getActionCommand();
 
             switch(eventCommand) {
 
-               case "Status":
-                  outputTextArea.append(theRestaurant.toString() + "\n\n");
-                  break;
-
-               case "All Item Names":
-                 doNames(theRestaurant);
-                  break;
-
-               case "Sort":
-                 doSortWork(theRestaurant);
-                  break;
-
                case "Help":
                   outputTextArea.append("Sort Fields: \n");
-                  outputTextArea.append("1. Item Name(asc) \n 2. Item profit (desc) \n 3. Item Avg Rating (desc) \n");
+                  outputTextArea.append("1. Item Name(asc) \n 2. Item profit (desc) \n 3. Item Avg Rating (desc) \n 4. Item Recent Rating, last " + Restaurant.RECENT_DAYS + " days (desc) \n");
+                  outputTextArea.append("Item Page also takes 0 for menu order, with # items as the page size.\n");
                   outputTextArea.append("Sort algorithms: \n"); 
-                  outputTextArea.append("1. Selection Sort \n 2. Insertion Sort \n\n");
+                  outputTextArea.append("1. Selection Sort \n 2. Insertion Sort \n 3. Bubble Sort \n");
+                  outputTextArea.append(" 4. Merge Sort \n 5. Heap Sort \n 6. Tim Sort \n 7. Key Sort \n 8. Sorted Index \n\n");
 
                   break;
 
-               case "+":
-                  doAddItem(theRestaurant);
+               case "Cancel":
+                  cancelJob();
                   break;
 
-               case "-":
-                  doRemoveItem(theRestaurant);
-                  break;
+               default:
+                  Form in = readForm(eventCommand);
+                  if (in != null) {
+                     submit(new RestaurantJob(eventCommand, in));
+                  }
+                  break; 
+            }
+         }
+   }
 
-               case "Activate":
-                  doActivateItem(theRestaurant);
-                  break;
+   /**
+    * Carries out a button's command on the restaurant queue.
+    * @param command The button pressed.
+    * @param in The input fields as they were when it was pressed.
+    * @return None.
+    */
+   private void runCommand(String command, Form in) {
+      Restaurant rest = restaurant;
+      switch(command) {
 
-               case "Discontinue":
-                  doDiscontinueItem(theRestaurant);
-                  break;
+         case "Status":
+            doStatus(rest);
+            break;
 
-               case "Order":
-                  doOrderItem(theRestaurant);
-                  break;
+         case "All Item Names":
+            doNames(rest);
+            break;
 
-               case "Rate Item":
-                  doRateItem(theRestaurant);
-                  break;
+         case "Sort":
+            doSortWork(rest, in);
+            break;
 
-               case "Update Price":
-                  doUpdatePrice(theRestaurant);
-                  break;
+         case "+":
+            doAddItem(rest, in);
+            break;
 
-               case "Average Rating":
-                  doAverageItemRating(theRestaurant);
-                  break;
+         case "-":
+            doRemoveItem(rest, in);
+            break;
 
-               case "Write File":
-                  doWriteFile(theRestaurant);
-                  break;
+         case "Activate":
+            doActivateItem(rest, in);
+            break;
 
-               default:
-                  break; 
+         case "Discontinue":
+            doDiscontinueItem(rest, in);
+            break;
+
+         case "Order":
+            doOrderItem(rest, in);
+            break;
+
+         case "Rate Item":
+            doRateItem(rest, in);
+            break;
+
+         case "Update Price":
+            doUpdatePrice(rest, in);
+            break;
+
+         case "Average Rating":
+            doAverageItemRating(rest);
+            break;
+
+         case "Write File":
+            doWriteFile(rest, in);
+            break;
+
+         case "Top N":
+            doTopItems(rest, in, false);
+            break;
+
+         case "Bottom N":
+            doTopItems(rest, in, true);
+            break;
+
+         case "Recent Ratings":
+            doRecentRatings(rest, in);
+            break;
+
+         case "Item Page":
+            doItemPage(rest, in);
+            break;
+
+         case "Next Page":
+            doNextPage(rest);
+            break;
+
+         default:
+            break; 
+      }
+      refreshTable(rest, command, in);
+   }
+
+   /**
+    * Brings the menu table up to date after a command. A change to one item sends a fresh copy
+    * of just its row, and adding, removing or changing every item fetches all the rows again.
+    * Runs on the queue thread.
+    * @param rest Restaurant object the command ran on.
+    * @param command The button pressed.
+    * @param in The input fields it ran with.
+    * @return None.
+    */
+   private void refreshTable(Restaurant rest, String command, Form in) {
+      boolean isOneItem = command.equals("Order") || command.equals("Rate Item");
+      boolean isOneOrAll = command.equals("Activate") || command.equals("Discontinue") || command.equals("Update Price");
+      if (command.equals("+") || command.equals("-") || isOneOrAll && in.isAllItems) {
+         loadTable(rest, tableSortField);
+      } else if (isOneItem || isOneOrAll) {
+         MenuItem item = rest.getMenuItem(in.itemName.trim());
+         if (item != null) {
+            final MenuTableModel.Row row = new MenuTableModel.Row(item);
+            SwingUtilities.invokeLater(new Runnable() {
+               public void run() {
+                  menuModel.rowChanged(row);
+               }
+            });
+         }
+      }
+   }
+
+   /**
+    * Fetches every row in sort field order by the Restaurant's fast path, copies them and hands
+    * the copies to the table. Runs on the queue thread.
+    * @param rest Restaurant object to be shown.
+    * @param field Restaurant sort field.
+    * @return None.
+    */
+   private void loadTable(Restaurant rest, final int field) {
+      final MenuTableModel.Row[] rows = MenuTableModel.toRows(rest.getSortedItems(field));
+      tableSortField = field;
+      SwingUtilities.invokeLater(new Runnable() {
+         public void run() {
+            menuModel.setRows(rows, field);
+            for (int i = 0; i < menuTable.getColumnCount(); i++) {
+               menuTable.getColumnModel().getColumn(i).setHeaderValue(menuModel.getColumnName(menuTable.convertColumnIndexToModel(i)));
+            }
+            menuTable.getTableHeader().repaint();
+         }
+      });
+   }
+
+   // the input fields as they were when a button was pressed, so a job never reads a Swing
+   // component from the queue thread
+   private static class Form {
+      String reviewerName;
+      String reviewerRating;
+      String reviewDate;
+      String itemName;
+      String numOrders;
+      String category;
+      String servingSize;
+      String numCalories;
+      String retailPrice;
+      String wholesalePrice;
+      String priceChange;
+      String sortField;
+      String sortAlgorithm;
+      String numItems;
+      String fileName;
+      boolean isAllItems;
+      boolean isWholesalePrice;
+      boolean isObjectFile;
+      boolean isSnapshotFile;
+   }
+
+   /**
+    * Reads the input fields, and for Write File asks for the file name.
+    * @param command The button pressed.
+    * @return The fields, or null if the file name dialog was cancelled.
+    */
+   private Form readForm(String command) {
+      Form in = new Form();
+      in.reviewerName = reviewerName.getText();
+      in.reviewerRating = reviewerRating.getText();
+      in.reviewDate = reviewDate.getText();
+      in.itemName = itemName.getText();
+      in.numOrders = numOrders.getText();
+      in.category = categoryCB.getSelectedItem().toString();
+      in.servingSize = servingSize.getText();
+      in.numCalories = numCalories.getText();
+      in.retailPrice = retailPrice.getText();
+      in.wholesalePrice = wholesalePrice.getText();
+      in.priceChange = priceChange.getText();
+      in.sortField = sortField.getText();
+      in.sortAlgorithm = sortAlgorithm.getText();
+      in.numItems = numItems.getText();
+      in.isAllItems = allItemsCB.isSelected();
+      in.isWholesalePrice = wholesalePriceCB.isSelected();
+      in.isObjectFile = objectFileCB.isSelected();
+      in.isSnapshotFile = snapshotFileCB.isSelected();
+      if (command.equals("Write File")) {
+         in.fileName = SimpleDialogs.stringInput("Enter output file name.", "Write File");
+      }
+      return in.fileName == null && command.equals("Write File") ? null : in;
+   }
+
+   /**
+    * One button's work, run on the restaurant queue.  Its output is published back to the
+    * text area in batches as it goes, and while it waits or runs the job panel shows it.
+    */
+   private class RestaurantJob extends SwingWorker<Void, String> {
+      private String command;
+      private Form in;
+      private boolean isOk;
+
+      public RestaurantJob(String command, Form in) {
+         this.command = command;
+         this.in = in;
+      }
+
+      // true once done without being cancelled or throwing
+      public boolean hasSucceeded() {
+         return isOk;
+      }
+
+      public boolean isCancellable() {
+         return Arrays.asList(CANCELLABLE).contains(command);
+      }
+
+      protected void work() throws Exception {
+         runCommand(command, in);
+      }
+
+      protected Void doInBackground() throws Exception {
+         runningJob = this;
+         try {
+            work();
+         } finally {
+            runningJob = null;
+         }
+         return null;
+      }
+
+      // called on the queue thread; output after a cancel is dropped
+      void output(String text) {
+         if (!isCancelled()) {
+            publish(text);
+         }
+      }
+
+      protected void process(java.util.List<String> chunks) {
+         StringBuilder builder = new StringBuilder();
+         for (String chunk : chunks) {
+            builder.append(chunk);
+         }
+         outputTextArea.append(builder.toString());
+      }
+
+      protected void done() {
+         try {
+            get();
+            isOk = true;
+         } catch (CancellationException ce) {
+            outputTextArea.append(command + " cancelled.\n\n");
+         } catch (InterruptedException ie) {
+            outputTextArea.append(command + " interrupted.\n\n");
+         } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            outputTextArea.append(command + " failed: " + (cause.getMessage() != null ? cause.getMessage() : cause.toString()) + "\n\n");
+         }
+         pendingJobs.remove(this);
+         showJobs();
+      }
+   }
+
+   private void submit(RestaurantJob job) {
+      pendingJobs.add(job);
+      showJobs();
+      restaurantQueue.execute(job);
+   }
+
+   // stops the running job if it only reads; mutations and writes always finish
+   private void cancelJob() {
+      RestaurantJob job = pendingJobs.peek();
+      if (job != null && job.isCancellable()) {
+         job.cancel(true);
+      }
+   }
+
+   // points the job panel at the oldest unfinished job
+   private void showJobs() {
+      RestaurantJob job = pendingJobs.peek();
+      progressBar.setIndeterminate(job != null);
+      cancelBtn.setEnabled(job != null && job.isCancellable());
+      if (job == null) {
+         jobLbl.setText("Ready");
+      } else if (pendingJobs.size() > 1) {
+         jobLbl.setText(job.command + "... (" + (pendingJobs.size() - 1) + " more queued)");
+      } else {
+         jobLbl.setText(job.command + "...");
+      }
+   }
+
+   private void setButtonsEnabled(boolean isEnabled) {
+      for (Component button : buttonPanel.getComponents()) {
+         button.setEnabled(isEnabled);
+      }
+   }
+
+   /**
+    * Sends job output to the text area.  Only called on the queue thread.
+    * @param text Text to be shown.
+    * @return None.
+    */
+   private void print(String text) {
+      runningJob.output(text);
+   }
+
+   /**
+    * Streams the whole menu into the output area a few KB at a time, stopping at the next
+    * chunk once the job is cancelled.
+    * @param rest Restaurant object to be shown.
+    * @return None.
+    */
+   private void doStatus(Restaurant rest) {
+      Appendable out = new Appendable() {
+         public Appendable append(CharSequence csq) throws java.io.IOException {
+            if (runningJob.isCancelled()) {
+               throw new java.io.InterruptedIOException("Status cancelled.");
             }
+            print(csq.toString());
+            return this;
+         }
+
+         public Appendable append(CharSequence csq, int start, int end) throws java.io.IOException {
+            return append(csq.subSequence(start, end));
+         }
+
+         public Appendable append(char c) throws java.io.IOException {
+            return append(String.valueOf(c));
          }
+      };
+      try {
+         rest.writeTo(out);
+      } catch (java.io.IOException ioe) {
+         print(ioe.getMessage() + "\n");
+      }
+      print("\n\n");
    }
 
    private void doNames(Restaurant rest) {
-      ArrayList<String> names = rest.getAllItemNames();
-      outputTextArea.append("The restaurant item names are as follows: \n");
-      for (String name: names){
-         outputTextArea.append(name + "\n");
+      print("The restaurant item names are as follows: \n");
+      showPage(rest, Restaurant.UNSORTED, NAMES_PER_PAGE, true);
+   }
+
+   /**
+    * Shows the first page of items in sort field order, with # items as the page size.
+    * @param rest Restaurant object to be listed.
+    * @return None.
+    */
+   private void doItemPage(Restaurant rest, Form in) {
+      String sortFieldTxt = in.sortField.trim();
+      String numItemsTxt = in.numItems.trim();
+
+      if (sortFieldTxt.equals("") || numItemsTxt.equals("")) {
+         print("Need sort field and # items!\n\n");
+         return;
+      }
+
+      try {
+         showPage(rest, Integer.parseInt(sortFieldTxt), Integer.parseInt(numItemsTxt), false);
+      } catch (NumberFormatException nfe) {
+         print("Sort field and # items must be numbers.\n\n");
+      }
+   }
+
+   private void doNextPage(Restaurant rest) {
+      if (currentPage == null) {
+         print("No more pages - use All Item Names or Item Page to start a listing.\n\n");
+         return;
+      }
+      try {
+         appendPage(rest.getNextPage(currentPage.getNextToken(), currentPageSize));
+      } catch (RestaurantException re) {
+         currentPage = null;
+         print(re.getMessage() + "\n\n");
       }
-      outputTextArea.append("\n");        
+   }
+
+   private void showPage(Restaurant rest, int field, int pageSize, boolean isNames) {
+      try {
+         currentPageSize = pageSize;
+         isNamePage = isNames;
+         appendPage(rest.getPage(field, pageSize));
+      } catch (RestaurantException re) {
+         currentPage = null;
+         print(re.getMessage() + "\n\n");
+      }
+   }
+
+   // shows the page and remembers where Next Page picks up
+   private void appendPage(MenuPage page) {
+      if (isNamePage) {
+         for (String name: page.getNames()) {
+            print(name + "\n");
+         }
+      } else {
+         for (MenuItem item: page.getItems()) {
+            print(item + "\n");
+         }
+      }
+      print(page.hasNextPage() ? "(Next Page for more)\n\n" : "\n");
+      currentPage = page.hasNextPage() ? page : null;
    }
     
-   private void doAddItem(Restaurant rest) {
-      if(itemName.getText().trim().equals("")       || servingSize.getText().trim().equals("") || 
-         numCalories.getText().trim().equals("")    || retailPrice.getText().trim().equals("") || 
-         wholesalePrice.getText().trim().equals("")) {
-         outputTextArea.append("Need fields for name, serving size, Calories, price, and wholesale price!\n\n");
+   private void doAddItem(Restaurant rest, Form in) {
+      if(in.itemName.trim().equals("")       || in.servingSize.trim().equals("") || 
+         in.numCalories.trim().equals("")    || in.retailPrice.trim().equals("") || 
+         in.wholesalePrice.trim().equals("")) {
+         print("Need fields for name, serving size, Calories, price, and wholesale price!\n\n");
          return;
       }
 
-      if(itemName.getText().trim().equals(null)       || servingSize.getText().trim().equals(null) || 
-         numCalories.getText().trim().equals(null)    || retailPrice.getText().trim().equals(null) || 
-         wholesalePrice.getText().trim().equals(null)) {
-         outputTextArea.append("Need fields for name, serving size, Calories, price, and wholesale price!");
+      if(in.itemName.trim().equals(null)       || in.servingSize.trim().equals(null) || 
+         in.numCalories.trim().equals(null)    || in.retailPrice.trim().equals(null) || 
+         in.wholesalePrice.trim().equals(null)) {
+         print("Need fields for name, serving size, Calories, price, and wholesale price!");
          return;
       }
 
-      String name = itemName.getText().trim();
-      String cat = categoryCB.getSelectedItem().toString();
+      String name = in.itemName.trim();
+      String cat = in.category;
       try{
          MenuCategory category = MenuCategory.valueOf(cat.toUpperCase());
-         int serving = Integer.parseInt(servingSize.getText().trim());
-         int numCals = Integer.parseInt(numCalories.getText().trim());          
-         double price = Double.parseDouble(retailPrice.getText().trim());
-         double wholesale = Double.parseDouble(wholesalePrice.getText().trim());
+         int serving = Integer.parseInt(in.servingSize.trim());
+         int numCals = Integer.parseInt(in.numCalories.trim());          
+         double price = Double.parseDouble(in.retailPrice.trim());
+         double wholesale = Double.parseDouble(in.wholesalePrice.trim());
          boolean success = rest.addToMenu(name, category, serving, numCals, price, wholesale);
          if (success) {
-            outputTextArea.append("Item " + name + " added successfully.\n\n");
+            print("Item " + name + " added successfully.\n\n");
          }
          else {
-            outputTextArea.append("Item " + name + " not added successfully.\n\n");
+            print("Item " + name + " not added successfully.\n\n");
          }
       } catch (RestaurantException re) {
-         outputTextArea.append(re.getMessage() + "\n");
-         outputTextArea.append("Item " + name + " not added to menu.\n\n");
+         print(re.getMessage() + "\n");
+         print("Item " + name + " not added to menu.\n\n");
       } catch (IllegalArgumentException iae) {
-         outputTextArea.append("Item " + name + " not added to menu due to invalid input (Needs category, retail price, wholesale price, name, and serving size).\n\n");
+         print("Item " + name + " not added to menu due to invalid input (Needs category, retail price, wholesale price, name, and serving size).\n\n");
       }
    }
     
-   private void doRemoveItem(Restaurant rest) {
-      if(itemName.getText().trim().equals("")) {
-         outputTextArea.append("Need field for name! \n\n");
+   private void doRemoveItem(Restaurant rest, Form in) {
+      if(in.itemName.trim().equals("")) {
+         print("Need field for name! \n\n");
          return;
       }
-      if(itemName.getText().trim().equals(null)) {
-         outputTextArea.append("Need field for name! \n\n");
+      if(in.itemName.trim().equals(null)) {
+         print("Need field for name! \n\n");
          return;
       }
 
-      String name = itemName.getText().trim();
-      if (rest.removeFromMenu(name)) {
-         outputTextArea.append(name + " successfully removed from menu.\n\n");
-      }
-      else {
-         outputTextArea.append(name + " unsuccessfully removed from menu.\n\n");
+      String name = in.itemName.trim();
+      try {
+         if (rest.removeFromMenu(name)) {
+            print(name + " successfully removed from menu.\n\n");
+         }
+         else {
+            print(name + " unsuccessfully removed from menu.\n\n");
+         }
+      } catch (RestaurantException re) {
+         print(re.getMessage() + "\n");
+         print(name + " unsuccessfully removed from menu.\n\n");
       }
    }   
 
@@ -446,25 +914,30 @@ public class RestaurantGUI extends CenterFrame {
     * @param rest Restaurant object to be written.
     * @return None.
     */
-   private void doActivateItem(Restaurant rest) {
-      Boolean choice = allItemsCB.isSelected();
+   private void doActivateItem(Restaurant rest, Form in) {
+      Boolean choice = in.isAllItems;
 
-      if (!choice) {
-         String name = itemName.getText().trim();
+      try {
+         if (!choice) {
+            String name = in.itemName.trim();
 
-         if (name.equals(null) || name.equals("")) {
-            outputTextArea.append("Non-empty item name required.\n\n");
-            return;
-         }
+            if (name.equals(null) || name.equals("")) {
+               print("Non-empty item name required.\n\n");
+               return;
+            }
 
-         if (rest.activate(name)) {
-            outputTextArea.append(name + " successfully activated on menu.\n\n");
+            if (rest.activate(name)) {
+               print(name + " successfully activated on menu.\n\n");
+            } else {
+               print(name + " unsuccessfully activated on menu.\n\n");
+            }
          } else {
-            outputTextArea.append(name + " unsuccessfully activated on menu.\n\n");
+            rest.activate();
+            print("Activated all items on menu.\n\n");
          }
-      } else {
-         rest.activate();
-         outputTextArea.append("Activated all items on menu.\n\n");
+      } catch (RestaurantException re) {
+         print(re.getMessage() + "\n");
+         print("Nothing activated on menu.\n\n");
       }
    }
     
@@ -473,25 +946,30 @@ public class RestaurantGUI extends CenterFrame {
     * @param rest Restaurant object to be written.
     * @return None.
     */
-   private void doDiscontinueItem(Restaurant rest) {
-      Boolean choice = allItemsCB.isSelected();
+   private void doDiscontinueItem(Restaurant rest, Form in) {
+      Boolean choice = in.isAllItems;
 
-      if (!choice) {
-         String name = itemName.getText().trim();
+      try {
+         if (!choice) {
+            String name = in.itemName.trim();
 
-         if (name.equals(null) || name.equals("")) {
-            outputTextArea.append("Non-empty item name required.\n\n");
-            return;
-         }
+            if (name.equals(null) || name.equals("")) {
+               print("Non-empty item name required.\n\n");
+               return;
+            }
 
-         if (rest.discontinue(name)) {
-            outputTextArea.append(name + " successfully discontinued on menu.\n\n");
+            if (rest.discontinue(name)) {
+               print(name + " successfully discontinued on menu.\n\n");
+            } else {
+               print(name + " unsuccessfully discontinued on menu.\n\n");
+            }
          } else {
-            outputTextArea.append(name + " unsuccessfully discontinued on menu.\n\n");
+            rest.discontinue();
+            print("Discontinued all items on menu.\n\n");
          }
-      } else {
-         rest.discontinue();
-         outputTextArea.append("Discontinued all items on menu.\n\n");
+      } catch (RestaurantException re) {
+         print(re.getMessage() + "\n");
+         print("Nothing discontinued on menu.\n\n");
       }
    }
     
@@ -501,38 +979,43 @@ public class RestaurantGUI extends CenterFrame {
     * @param rest Restaurant object to be written.
     * @return None.
     */
-   private void doUpdatePrice(Restaurant rest) {
+   private void doUpdatePrice(Restaurant rest, Form in) {
 
-      String percentTxt = priceChange.getText().trim();
+      String percentTxt = in.priceChange.trim();
 
       if (percentTxt.equals(null) || percentTxt.equals("")) {
-         outputTextArea.append("Non-empty percent required.\n\n");
+         print("Non-empty percent required.\n\n");
          return;
       }
 
       int percent = Integer.parseInt(percentTxt);
-      boolean isWholesale = wholesalePriceCB.isSelected();
-      boolean updateAllItems = allItemsCB.isSelected();
+      boolean isWholesale = in.isWholesalePrice;
+      boolean updateAllItems = in.isAllItems;
 
-      if (!updateAllItems) {
-         String name = itemName.getText().trim();
+      try {
+         if (!updateAllItems) {
+            String name = in.itemName.trim();
 
-         if (name.equals(null) || name.equals("")) {
-            outputTextArea.append("Non-empty item name required.\n\n");
-            return;
-         }
+            if (name.equals(null) || name.equals("")) {
+               print("Non-empty item name required.\n\n");
+               return;
+            }
 
-         if (rest.updatePrice(isWholesale, name, percent)) {
-            outputTextArea.append("Price for " + name + " successfully changed.\n\n");
-         } else {
-            outputTextArea.append("Price for " + name + " unsuccessfully changed.\n\n");
-         }
-      } else {
-         if (rest.updatePrice(isWholesale, percent)) {
-            outputTextArea.append("Successfully changed prices for all items on menu.\n\n");
+            if (rest.updatePrice(isWholesale, name, percent)) {
+               print("Price for " + name + " successfully changed.\n\n");
+            } else {
+               print("Price for " + name + " unsuccessfully changed.\n\n");
+            }
          } else {
-            outputTextArea.append("Unsuccessfully changed prices for all items on menu.\n\n");
+            if (rest.updatePrice(isWholesale, percent)) {
+               print("Successfully changed prices for all items on menu.\n\n");
+            } else {
+               print("Unsuccessfully changed prices for all items on menu.\n\n");
+            }
          }
+      } catch (RestaurantException re) {
+         print(re.getMessage() + "\n");
+         print("Prices unsuccessfully changed.\n\n");
       }
    }
     
@@ -541,45 +1024,45 @@ public class RestaurantGUI extends CenterFrame {
     * @param rest Restaurant object to be written.
     * @return None.
     */
-   private void doRateItem(Restaurant rest) {
-      String itemNameTxt = itemName.getText().trim();
-      String reviewerNameTxt = reviewerName.getText().trim();
-      String date = reviewDate.getText().trim();
+   private void doRateItem(Restaurant rest, Form in) {
+      String itemNameTxt = in.itemName.trim();
+      String reviewerNameTxt = in.reviewerName.trim();
+      String date = in.reviewDate.trim();
 
-      String ratingTxt = reviewerRating.getText().trim();
+      String ratingTxt = in.reviewerRating.trim();
 
       if (ratingTxt.equals(null) || ratingTxt.equals("")) {
-         outputTextArea.append("Non-empty rating required (1 - 5).\n\n");
+         print("Non-empty rating required (1 - 5).\n\n");
          return;
       }
 
       int rating = Integer.parseInt(ratingTxt);
 
       if (itemNameTxt.equals(null) || itemNameTxt.equals("")) {
-         outputTextArea.append("Non-empty item name required.\n\n");
+         print("Non-empty item name required.\n\n");
          return;
       }
 
       if (reviewerNameTxt.equals(null) || reviewerNameTxt.equals("")) {
-         outputTextArea.append("Non-empty reviewer name required.\n\n");
+         print("Non-empty reviewer name required.\n\n");
          return;
       }
 
       if (date.equals(null) || date.equals("")) {
-         outputTextArea.append("Non-empty date required (mm/dd/yyyy).\n\n");
+         print("Non-empty date required (mm/dd/yyyy).\n\n");
          return;
       }      
 
       try {
          boolean success = rest.addRating(itemNameTxt, reviewerNameTxt, date, rating);
          if (success) {
-            outputTextArea.append("Rating successfully added for " + itemNameTxt + "\n\n");
+            print("Rating successfully added for " + itemNameTxt + "\n\n");
          } else {
-            outputTextArea.append("Rating unsuccessfully added for " + itemNameTxt + "\n\n");
+            print("Rating unsuccessfully added for " + itemNameTxt + "\n\n");
          }
       } catch (RestaurantException re) {
-         outputTextArea.append(re.getMessage() + "\n");
-         outputTextArea.append("Rating unsuccessfully added for " + itemNameTxt + "\n\n");
+         print(re.getMessage() + "\n");
+         print("Rating unsuccessfully added for " + itemNameTxt + "\n\n");
       }
    }
     
@@ -588,33 +1071,39 @@ public class RestaurantGUI extends CenterFrame {
     * @param rest Restaurant object to be written.
     * @return None.
     */
-   private void doOrderItem(Restaurant rest) {
-      String itemNameTxt = itemName.getText().trim();
-      String numOrdersTxt = numOrders.getText().trim();
+   private void doOrderItem(Restaurant rest, Form in) {
+      String itemNameTxt = in.itemName.trim();
+      String numOrdersTxt = in.numOrders.trim();
 
       if (itemNameTxt.equals(null) || itemNameTxt.equals("")) {
-         outputTextArea.append("Non-empty item name required.");
+         print("Non-empty item name required.");
          return;
       }
 
       if (numOrdersTxt.equals(null) || numOrdersTxt.equals("")) {
-         outputTextArea.append("Non-empty number of orders required.");
+         print("Non-empty number of orders required.");
          return;
       }
 
       int numOrdersVal = Integer.parseInt(numOrdersTxt);
-      boolean success = rest.order(itemNameTxt, numOrdersVal);
+      boolean success;
+      try {
+         success = rest.order(itemNameTxt, numOrdersVal);
+      } catch (RestaurantException re) {
+         print(re.getMessage() + "\n");
+         success = false;
+      }
 
       if (numOrdersVal > 1)
          itemNameTxt += "s";
 
       if (success)
       {
-         outputTextArea.append(numOrdersVal + " " + itemNameTxt + " successfully ordered.\n\n");
+         print(numOrdersVal + " " + itemNameTxt + " successfully ordered.\n\n");
       }
       else
       {
-         outputTextArea.append(numOrdersVal + " " + itemNameTxt + " unsuccessfully ordered.\n\n");
+         print(numOrdersVal + " " + itemNameTxt + " unsuccessfully ordered.\n\n");
       }
    }
 
@@ -625,7 +1114,7 @@ public class RestaurantGUI extends CenterFrame {
     */
    private void doProfit(Restaurant rest)
    {
-     System.out.println("The total profit of restaurant " + rest.getName() + " is " + FMT.format(rest.getTotalProfit()) + ".");
+     System.out.println("The total profit of restaurant " + rest.getName() + " is " + Money.format(rest.getTotalProfitCents()) + ".");
    }
     
    /**
@@ -634,54 +1123,114 @@ public class RestaurantGUI extends CenterFrame {
     * @return None.
     */
    private void doAverageItemRating(Restaurant rest) {
-      outputTextArea.append("Processing average item rating...\r\n");
-      outputTextArea.append("The average rating for menu items at restaurant " + rest.getName() + " is " + FMT.format(rest.getAverageItemRating()).substring(1) + ".\r\n");
+      print("Processing average item rating...\r\n");
+      print("The average rating for menu items at restaurant " + rest.getName() + " is " + FMT.format(rest.getAverageItemRating()).substring(1) + ".\r\n");
+      RatingHistogram histogram = rest.getRatingHistogram();
+      print("Ratings by score (" + histogram.getTotal() + " in all): " + histogram + "\r\n");
+      print("Median " + histogram.getMedian() + ", mode " + histogram.getMode() + ", " +
+                            String.format("%.1f", 100 * histogram.getShare(Rating.MAX_RATING)) + "% " + Rating.MAX_RATING + "-star.\r\n");
    }
     
 
+   /**
+    * Reports rating counts and averages for the RECENT_DAYS ending at the review date, or at
+    * the newest rating when no date is entered.
+    * @param rest Restaurant object to be queried.
+    * @return None.
+    */
+   private void doRecentRatings(Restaurant rest, Form in) {
+      String endDate = in.reviewDate.trim();
+      if (endDate.equals("")) {
+         int lastDay = rest.getLastRatingDay();
+         endDate = DateCodec.format(lastDay == DateCodec.INVALID ? DateCodec.today() : lastDay);
+      }
+
+      try {
+         print(rest.getRecentRatingReport(endDate, Restaurant.RECENT_DAYS) + "\n");
+      } catch (RestaurantException re) {
+         print(re.getMessage() + "\n\n");
+      }
+   }
+
    /**
     * Writes the current restaurant data to a file. Will write to text files or 
     * object files.
     * @param rest Restaurant object to be written.
     * @return None.
     */
-   private void doWriteFile(Restaurant rest) {
+   private void doWriteFile(Restaurant rest, Form in) {
 
-      String fileName = SimpleDialogs.stringInput("Enter output file name.", "Write File").trim();
-      boolean isObject = objectFileCB.isSelected();
+      String fileName = in.fileName.trim();
+      boolean isObject = in.isObjectFile;
+      boolean isSnapshot = !isObject && in.isSnapshotFile;
+      String fileType = isObject ? "Object" : isSnapshot ? "Snapshot" : "Text";
    
       if (fileName.equals(null) || fileName.equals("")) {
-         outputTextArea.append("Non-empty filename required.\n\n");
+         print("Non-empty filename required.\n\n");
          return;
       }
 
       try
       {
-         rest.writeToFile(fileName, isObject);
-         outputTextArea.append((isObject ? "Object" : "Text") + " file " + fileName + " written successfully." + "\r\n");
+         if (isSnapshot) {
+            rest.writeToFile(fileName, Restaurant.SNAPSHOT_FILE);
+         } else {
+            rest.writeToFile(fileName, isObject);
+         }
+         print(fileType + " file " + fileName + " written successfully." + "\r\n");
       }
       catch (RestaurantException re)
       {
-         outputTextArea.append(re.getMessage() + "\r\n");
-         outputTextArea.append((isObject ? "Object" : "Text") + " file " + fileName + " could not be written." + "\r\n");
+         print(re.getMessage() + "\r\n");
+         print(fileType + " file " + fileName + " could not be written." + "\r\n");
       }        
    }
     
-   private void doSortWork(Restaurant rest) {
-      if( sortField.getText().trim().equals("") || sortAlgorithm.getText().trim().equals("")) {
-         outputTextArea.append("Need non-null input!\n");
+   private void doSortWork(Restaurant rest, Form in) {
+      if( in.sortField.trim().equals("") || in.sortAlgorithm.trim().equals("")) {
+         print("Need non-null input!\n");
          return;
       }
-      if( sortField.getText().trim().equals(null) || sortAlgorithm.getText().trim().equals(null)) {
-         outputTextArea.append("Need non-null input!\n");
+      if( in.sortField.trim().equals(null) || in.sortAlgorithm.trim().equals(null)) {
+         print("Need non-null input!\n");
          return;
       }
 
-      int sortNum = Integer.parseInt(sortField.getText().trim());
-      int alg = Integer.parseInt(sortAlgorithm.getText().trim());
+      int sortNum = Integer.parseInt(in.sortField.trim());
+      int alg = Integer.parseInt(in.sortAlgorithm.trim());
+
+      // interruptible, so Cancel stops even a quadratic sort part way
+      String result = rest.sort(sortNum, alg, true);
+      print("Sort results:\n" + result +"\n");
+   }
+
+   /**
+    * Lists the first or last N items by the chosen sort field.
+    * @param rest Restaurant object to be queried.
+    * @param isBottom True for the last N items instead of the first N.
+    * @return None.
+    */
+   private void doTopItems(Restaurant rest, Form in, boolean isBottom) {
+      String sortFieldTxt = in.sortField.trim();
+      String numItemsTxt = in.numItems.trim();
 
-      String result = rest.sort(sortNum, alg);
-      outputTextArea.append("Sort results:\n" + result +"\n");
+      if (sortFieldTxt.equals("") || numItemsTxt.equals("")) {
+         print("Need sort field and # items!\n\n");
+         return;
+      }
+
+      try {
+         int field = Integer.parseInt(sortFieldTxt);
+         int count = Integer.parseInt(numItemsTxt);
+         ArrayList<MenuItem> items = isBottom ? rest.bottomK(field, count) : rest.topK(field, count);
+         print((isBottom ? "Bottom " : "Top ") + items.size() + " items:\n");
+         for (MenuItem item : items) {
+            print(item + "\n");
+         }
+         print("\n");
+      } catch (NumberFormatException nfe) {
+         print("Sort field and # items must be numbers.\n\n");
+      }
    }
     
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Gives every distinct reviewer name a small int id so ratings can store the id instead of the
+ * String, and every rating by the same reviewer shares one String.  Ids are handed out in
+ * first-seen order and never change.  Each Restaurant has its own dictionary and hands it to
+ * whatever loads items for it; an item built on its own gets a dictionary of its own, which
+ * costs nothing until a name is interned.  intern may be called from any thread (the bulk
+ * loaders parse items in parallel); getName needs no lock.
+ */
+public class ReviewerDictionary
+{
+    private static final String[] NO_NAMES = new String[0];
+
+    private HashMap<String, Integer> ids; // created with the first name
+    // rewritten after every new name so a reader that sees an id also sees its name
+    private volatile String[] names = NO_NAMES;
+    private int size;
+
+    public synchronized int intern(String name)
+    {
+        if (ids == null)
+        {
+            ids = new HashMap<String, Integer>();
+        }
+        Integer id = ids.get(name);
+        if (id == null)
+        {
+            String[] all = names;
+            if (size == all.length)
+            {
+                all = Arrays.copyOf(all, Math.max(16, size * 2));
+            }
+            all[size] = name;
+            id = size;
+            ids.put(name, id);
+            size++;
+            names = all;
+        }
+        return id;
+    }
+
+    /**
+     * The id of the name, or -1 if it has never been interned.
+     */
+    public synchronized int getId(String name)
+    {
+        Integer id = ids == null ? null : ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    public String getName(int id)
+    {
+        return names[id];
+    }
+
+    public synchronized int size()
+    {
+        return size;
+    }
+}
@@ -0,0 +1,131 @@
+import java.util.Arrays;
+
+/**
+ * For every reviewer in a restaurant's ReviewerDictionary, the ratings that reviewer has written,
+ * kept as (menu item, position in the item's RatingStore) pairs.  Counting the ratings by one
+ * reviewer is O(1) and listing them touches only those ratings.  The items' rating stores must
+ * use the same dictionary.
+ */
+public class ReviewerIndex
+{
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int INITIAL_POSTINGS = 4;
+
+    private ReviewerDictionary dictionary;
+    // all three indexed by reviewer id
+    private MenuItem[][] items;
+    private int[][] positions;
+    private int[] counts;
+
+    public ReviewerIndex(ReviewerDictionary dictionary)
+    {
+        this.dictionary = dictionary;
+        int capacity = Math.max(INITIAL_CAPACITY, dictionary.size());
+        items = new MenuItem[capacity][];
+        positions = new int[capacity][];
+        counts = new int[capacity];
+    }
+
+    public ReviewerDictionary getDictionary()
+    {
+        return dictionary;
+    }
+
+    /**
+     * Records the rating at the given position of the item's RatingStore.
+     */
+    public void add(MenuItem item, int position)
+    {
+        int id = item.getRatingStore().getReviewerId(position);
+        if (id >= counts.length)
+        {
+            int capacity = Math.max(id + 1, counts.length * 2);
+            items = Arrays.copyOf(items, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        int count = counts[id];
+        if (items[id] == null)
+        {
+            items[id] = new MenuItem[INITIAL_POSTINGS];
+            positions[id] = new int[INITIAL_POSTINGS];
+        }
+        else if (count == items[id].length)
+        {
+            items[id] = Arrays.copyOf(items[id], count * 2);
+            positions[id] = Arrays.copyOf(positions[id], count * 2);
+        }
+        items[id][count] = item;
+        positions[id][count] = position;
+        counts[id] = count + 1;
+    }
+
+    public void addAll(MenuItem item)
+    {
+        int numRatings = item.getRatingStore().size();
+        for (int i = 0; i < numRatings; i++)
+        {
+            add(item, i);
+        }
+    }
+
+    /**
+     * Forgets every rating of the item, for example when it leaves the menu.
+     */
+    public void removeAll(MenuItem item)
+    {
+        // each reviewer's postings are compacted once, however many times they rated the item
+        RatingStore ratings = item.getRatingStore();
+        int[] ids = new int[ratings.size()];
+        for (int i = 0; i < ids.length; i++)
+        {
+            ids[i] = ratings.getReviewerId(i);
+        }
+        Arrays.sort(ids);
+        for (int i = 0; i < ids.length; i++)
+        {
+            int id = ids[i];
+            if ((i == 0 || id != ids[i - 1]) && id < counts.length)
+            {
+                // keep the reviewer's other postings in order, dropping every one for this item
+                int kept = 0;
+                for (int j = 0; j < counts[id]; j++)
+                {
+                    if (items[id][j] != item)
+                    {
+                        items[id][kept] = items[id][j];
+                        positions[id][kept] = positions[id][j];
+                        kept++;
+                    }
+                }
+                Arrays.fill(items[id], kept, counts[id], null);
+                counts[id] = kept;
+            }
+        }
+    }
+
+    public int getCount(int reviewerId)
+    {
+        return reviewerId >= 0 && reviewerId < counts.length ? counts[reviewerId] : 0;
+    }
+
+    public MenuItem getItem(int reviewerId, int index)
+    {
+        checkIndex(reviewerId, index);
+        return items[reviewerId][index];
+    }
+
+    public int getPosition(int reviewerId, int index)
+    {
+        checkIndex(reviewerId, index);
+        return positions[reviewerId][index];
+    }
+
+    private void checkIndex(int reviewerId, int index)
+    {
+        if (index < 0 || index >= getCount(reviewerId))
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + getCount(reviewerId));
+        }
+    }
+}
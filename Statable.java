@@ -0,0 +1,16 @@
+import java.io.IOException;
+
+/**
+ * Something that can be written out as text: getState and writeState give the text file
+ * form, and writeTo gives the same human-readable form as toString.  The write methods send
+ * the text straight to the Appendable (a Writer, a PrintStream or a StringBuilder) in pieces,
+ * so a large menu never has to exist as one String.
+ */
+public interface Statable
+{
+    public String getState();
+
+    public void writeState(Appendable out) throws IOException;
+
+    public void writeTo(Appendable out) throws IOException;
+}
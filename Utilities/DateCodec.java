@@ -0,0 +1,172 @@
+package utilities;
+
+/**
+ * Converts "mm/dd/yyyy" dates to and from epoch days (days since 01/01/1970, negative before),
+ * so a date can be stored and compared as a single int.  Uses the proleptic Gregorian calendar
+ * for years 0000 to 9999.  Parsing reads the characters in place and allocates nothing.
+ */
+public class DateCodec
+{
+    public static final int DATE_LENGTH = 10;
+    /** Returned by parse for text that is not a valid date; never a real epoch day in range. */
+    public static final int INVALID = Integer.MIN_VALUE;
+    public static final int MIN_YEAR = 0;
+    public static final int MAX_YEAR = 9999;
+
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    public static boolean isLeapYear(int year)
+    {
+        return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    public static int daysInMonth(int year, int month)
+    {
+        return month == 2 && isLeapYear(year) ? 29 : DAYS_IN_MONTH[month - 1];
+    }
+
+    public static boolean isValid(int year, int month, int day)
+    {
+        return year >= MIN_YEAR && year <= MAX_YEAR && month >= 1 && month <= 12 && day >= 1 && day <= daysInMonth(year, month);
+    }
+
+    public static boolean isValid(CharSequence date)
+    {
+        return parse(date) != INVALID;
+    }
+
+    /**
+     * Days since 01/01/1970 for the given calendar date.  The fields are not checked.
+     */
+    public static int toEpochDay(int year, int month, int day)
+    {
+        // shift the year to start in March so the leap day is the last day of the year
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Epoch day of a "mm/dd/yyyy" date, or INVALID if the text is null, not in that form or not
+     * a real calendar date.
+     */
+    public static int parse(CharSequence date)
+    {
+        return date == null ? INVALID : parse(date, 0, date.length());
+    }
+
+    /**
+     * Same as parse(CharSequence) for the characters from start up to (not including) end, so a
+     * date can be read straight out of a longer line.
+     */
+    public static int parse(CharSequence text, int start, int end)
+    {
+        if (end - start != DATE_LENGTH || text.charAt(start + 2) != '/' || text.charAt(start + 5) != '/')
+        {
+            return INVALID;
+        }
+        int month = number(text, start, 2);
+        int day = number(text, start + 3, 2);
+        int year = number(text, start + 6, 4);
+        return isValid(year, month, day) ? toEpochDay(year, month, day) : INVALID;
+    }
+
+    // the value of a run of decimal digits, or -1 if any character is not a digit
+    private static int number(CharSequence text, int start, int length)
+    {
+        int result = 0;
+        for (int i = start; i < start + length; i++)
+        {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9')
+            {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    /**
+     * Appends the epoch day in "mm/dd/yyyy" form without creating any intermediate objects.
+     */
+    public static void append(StringBuilder builder, int epochDay)
+    {
+        int civil = toCivil(epochDay);
+        int month = civil / 100 % 100;
+        int day = civil % 100;
+        builder.append((char) ('0' + month / 10)).append((char) ('0' + month % 10)).append('/');
+        builder.append((char) ('0' + day / 10)).append((char) ('0' + day % 10)).append('/');
+        appendYear(builder, civil / 10000);
+    }
+
+    private static void appendYear(StringBuilder builder, int year)
+    {
+        builder.append((char) ('0' + year / 1000)).append((char) ('0' + year / 100 % 10));
+        builder.append((char) ('0' + year / 10 % 10)).append((char) ('0' + year % 10));
+    }
+
+    // the date packed as yyyymmdd
+    private static int toCivil(int epochDay)
+    {
+        int shifted = epochDay + 719468;
+        int era = Math.floorDiv(shifted, 146097);
+        int dayOfEra = shifted - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int monthIndex = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * monthIndex + 2) / 5 + 1;
+        int month = monthIndex < 10 ? monthIndex + 3 : monthIndex - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 10000 + month * 100 + day;
+    }
+
+    public static String format(int epochDay)
+    {
+        StringBuilder builder = new StringBuilder(DATE_LENGTH);
+        append(builder, epochDay);
+        return builder.toString();
+    }
+
+    /**
+     * The calendar month holding the epoch day, counted in months since January of year 0000.
+     */
+    public static int toMonth(int epochDay)
+    {
+        int civil = toCivil(epochDay);
+        return civil / 10000 * 12 + civil / 100 % 100 - 1;
+    }
+
+    public static int firstDayOfMonth(int month)
+    {
+        return toEpochDay(month / 12, month % 12 + 1, 1);
+    }
+
+    public static int lastDayOfMonth(int month)
+    {
+        return firstDayOfMonth(month + 1) - 1;
+    }
+
+    /**
+     * A month from toMonth in "mm/yyyy" form.
+     */
+    public static String formatMonth(int month)
+    {
+        StringBuilder builder = new StringBuilder(7);
+        int monthOfYear = month % 12 + 1;
+        builder.append((char) ('0' + monthOfYear / 10)).append((char) ('0' + monthOfYear % 10)).append('/');
+        appendYear(builder, month / 12);
+        return builder.toString();
+    }
+
+    /**
+     * Today's epoch day in the system time zone.
+     */
+    public static int today()
+    {
+        return (int) java.time.LocalDate.now().toEpochDay();
+    }
+}
@@ -0,0 +1,153 @@
+package utilities;
+
+/**
+ * Helpers for amounts of money held as a whole number of cents in a long.  Sums and products of
+ * cents are exact, so totals never drift the way repeated double arithmetic does; conversion to
+ * and from dollars only happens at the edges (user input, display and the text file format).
+ */
+public class Money
+{
+    public static final long CENTS_PER_DOLLAR = 100;
+
+    /**
+     * Rounds a dollar amount to the nearest cent.
+     */
+    public static long toCents(double dollars)
+    {
+        return Math.round(dollars * CENTS_PER_DOLLAR);
+    }
+
+    public static double toDollars(long cents)
+    {
+        return cents / (double) CENTS_PER_DOLLAR;
+    }
+
+    /**
+     * Returns cents raised (or lowered, for a negative percentage) by the given whole percentage,
+     * rounded half away from zero to the nearest cent.
+     */
+    public static long percentChange(long cents, int percentage)
+    {
+        long scaled = cents * (100 + percentage);
+        return (scaled + (scaled < 0 ? -50 : 50)) / 100;
+    }
+
+    /**
+     * Parses a decimal dollar amount such as "12", "12.5" or "-0.99" straight to cents, rounding
+     * any digits past the cents half away from zero.  Anything that is not a plain decimal (for
+     * example exponent notation written by older versions) goes through Double.parseDouble.
+     *
+     * @throws NumberFormatException if the text is not a number
+     */
+    public static long parse(CharSequence text)
+    {
+        int length = text.length();
+        int i = 0;
+        boolean negative = false;
+        if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+'))
+        {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        long cents = 0;
+        int numDigits = 0;
+        int fractionDigits = -1;
+        boolean roundUp = false;
+        boolean simple = i < length;
+        for (; simple && i < length; i++)
+        {
+            char c = text.charAt(i);
+            if (c == '.' && fractionDigits < 0)
+            {
+                fractionDigits = 0;
+            }
+            else if (c >= '0' && c <= '9' && numDigits < 16)
+            {
+                if (fractionDigits < 0)
+                {
+                    cents = cents * 10 + (c - '0');
+                    numDigits++;
+                }
+                else if (fractionDigits < 2)
+                {
+                    cents = cents * 10 + (c - '0');
+                    fractionDigits++;
+                }
+                else if (fractionDigits == 2)
+                {
+                    roundUp = c >= '5';
+                    fractionDigits++;
+                }
+            }
+            else
+            {
+                simple = false;
+            }
+        }
+        if (!simple || (numDigits == 0 && fractionDigits <= 0))
+        {
+            return toCents(Double.parseDouble(text.toString()));
+        }
+        for (int f = Math.max(fractionDigits, 0); f < 2; f++)
+        {
+            cents *= 10;
+        }
+        if (roundUp)
+        {
+            cents++;
+        }
+        return negative ? -cents : cents;
+    }
+
+    /**
+     * Plain decimal with exactly two fraction digits, e.g. "1234.50", readable by parse and by
+     * Double.parseDouble.
+     */
+    public static String toPlainString(long cents)
+    {
+        StringBuilder builder = new StringBuilder(24);
+        appendPlain(builder, cents);
+        return builder.toString();
+    }
+
+    public static void appendPlain(StringBuilder builder, long cents)
+    {
+        if (cents < 0)
+        {
+            builder.append('-');
+        }
+        long magnitude = Math.abs(cents);
+        long fraction = magnitude % CENTS_PER_DOLLAR;
+        builder.append(magnitude / CENTS_PER_DOLLAR).append('.');
+        if (fraction < 10)
+        {
+            builder.append('0');
+        }
+        builder.append(fraction);
+    }
+
+    /**
+     * Display form matching the "$#,##0.00" DecimalFormat used elsewhere, e.g. "$1,234.50".
+     */
+    public static String format(long cents)
+    {
+        String plain = toPlainString(Math.abs(cents));
+        StringBuilder builder = new StringBuilder(plain.length() + 8);
+        if (cents < 0)
+        {
+            builder.append('-');
+        }
+        builder.append('$');
+        int wholeDigits = plain.length() - 3;
+        for (int i = 0; i < wholeDigits; i++)
+        {
+            if (i > 0 && (wholeDigits - i) % 3 == 0)
+            {
+                builder.append(',');
+            }
+            builder.append(plain.charAt(i));
+        }
+        builder.append(plain, wholeDigits, plain.length());
+        return builder.toString();
+    }
+}
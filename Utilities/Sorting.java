@@ -1,5 +1,10 @@
 package utilities;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.PriorityQueue;
 public class Sorting
 {
    public static <E> void selectionSort(E[] sort, Comparator<E> comparator)
@@ -122,4 +127,433 @@ public class Sorting
 
       } 
    }   
+
+   public static <E> void mergeSort(E[] sort, Comparator<E> comparator)
+   {
+       if (sort != null && sort.length > 0)
+       {
+           mergeSort(sort, sort.length, comparator);
+       }
+   }
+
+   public static <E> void mergeSort(E[] sort, int n, Comparator<E> comparator)
+   {
+      if (n > sort.length || n <= 0)
+      {
+         n = sort.length;
+      }
+
+      E[] temp = sort.clone();
+      mergeSort(sort, temp, 0, n, comparator);
+   }
+
+   private static <E> void mergeSort(E[] sort, E[] temp, int low, int high, Comparator<E> comparator)
+   {
+      if (high - low < 2)
+      {
+         return;
+      }
+
+      int mid = (low + high) >>> 1;
+      mergeSort(sort, temp, low, mid, comparator);
+      mergeSort(sort, temp, mid, high, comparator);
+
+      // halves already in order, nothing to merge
+      if (comparator.compare(sort[mid - 1], sort[mid]) <= 0)
+      {
+         return;
+      }
+      merge(sort, temp, low, mid, high, comparator);
+   }
+
+   public static <E> void heapSort(E[] sort, Comparator<E> comparator)
+   {
+       if (sort != null && sort.length > 0)
+       {
+           heapSort(sort, sort.length, comparator);
+       }
+   }
+
+   public static <E> void heapSort(E[] sort, int n, Comparator<E> comparator)
+   {
+      if (n > sort.length || n <= 0)
+      {
+         n = sort.length;
+      }
+
+      // build a max heap in place
+      for (int index = n / 2 - 1; index >= 0; index--)
+      {
+         siftDown(sort, index, n, comparator);
+      }
+
+      // repeatedly move the largest remaining value to the end
+      for (int end = n - 1; end > 0; end--)
+      {
+         E temp = sort[0];
+         sort[0] = sort[end];
+         sort[end] = temp;
+         siftDown(sort, 0, end, comparator);
+      }
+   }
+
+   private static <E> void siftDown(E[] sort, int index, int n, Comparator<E> comparator)
+   {
+      E temp = sort[index];
+      int child = 2 * index + 1;
+      while (child < n)
+      {
+         if (child + 1 < n && comparator.compare(sort[child + 1], sort[child]) > 0)
+         {
+            child++;
+         }
+         if (comparator.compare(sort[child], temp) <= 0)
+         {
+            break;
+         }
+         sort[index] = sort[child];
+         index = child;
+         child = 2 * index + 1;
+      }
+      sort[index] = temp;
+   }
+
+   public static <E> void timSort(E[] sort, Comparator<E> comparator)
+   {
+       if (sort != null && sort.length > 0)
+       {
+           timSort(sort, sort.length, comparator);
+       }
+   }
+
+   public static <E> void timSort(E[] sort, int n, Comparator<E> comparator)
+   {
+      if (n > sort.length || n <= 0)
+      {
+         n = sort.length;
+      }
+
+      int minRun = minRunLength(n);
+      int[] runStart = new int[49];
+      int[] runLength = new int[49];
+      int numRuns = 0;
+      E[] temp = null;
+
+      int low = 0;
+      while (low < n)
+      {
+         // find the natural run starting at low, reversing it if strictly descending
+         int high = low + 1;
+         if (high < n)
+         {
+            if (comparator.compare(sort[high], sort[low]) < 0)
+            {
+               while (high < n && comparator.compare(sort[high], sort[high - 1]) < 0)
+               {
+                  high++;
+               }
+               reverse(sort, low, high);
+            }
+            else
+            {
+               while (high < n && comparator.compare(sort[high], sort[high - 1]) >= 0)
+               {
+                  high++;
+               }
+            }
+         }
+
+         // extend short runs to minRun with insertion sort
+         if (high - low < minRun)
+         {
+            int forced = Math.min(n, low + minRun);
+            binaryInsertionSort(sort, low, high, forced, comparator);
+            high = forced;
+         }
+
+         runStart[numRuns] = low;
+         runLength[numRuns] = high - low;
+         numRuns++;
+
+         // keep run lengths decreasing like a Fibonacci sequence so merges stay balanced
+         while (numRuns > 1)
+         {
+            int which = numRuns - 2;
+            if ((which > 0 && runLength[which - 1] <= runLength[which] + runLength[which + 1]) ||
+                (which > 1 && runLength[which - 2] <= runLength[which - 1] + runLength[which]))
+            {
+               if (runLength[which - 1] < runLength[which + 1])
+               {
+                  which--;
+               }
+            }
+            else if (runLength[which] > runLength[which + 1])
+            {
+               break;
+            }
+            if (temp == null)
+            {
+               temp = sort.clone();
+            }
+            mergeRuns(sort, temp, runStart, runLength, which, comparator);
+            numRuns--;
+         }
+
+         low = high;
+      }
+
+      while (numRuns > 1)
+      {
+         if (temp == null)
+         {
+            temp = sort.clone();
+         }
+         mergeRuns(sort, temp, runStart, runLength, numRuns - 2, comparator);
+         numRuns--;
+      }
+   }
+
+   private static int minRunLength(int n)
+   {
+      int extra = 0;
+      while (n >= 32)
+      {
+         extra |= n & 1;
+         n >>= 1;
+      }
+      return n + extra;
+   }
+
+   private static <E> void reverse(E[] sort, int low, int high)
+   {
+      high--;
+      while (low < high)
+      {
+         E temp = sort[low];
+         sort[low++] = sort[high];
+         sort[high--] = temp;
+      }
+   }
+
+   // sort[low, sorted) is already in order; insert the rest of sort[low, high) into it
+   private static <E> void binaryInsertionSort(E[] sort, int low, int sorted, int high, Comparator<E> comparator)
+   {
+      for (int index = sorted; index < high; index++)
+      {
+         E temp = sort[index];
+         int left = low;
+         int right = index;
+         while (left < right)
+         {
+            int mid = (left + right) >>> 1;
+            if (comparator.compare(temp, sort[mid]) < 0)
+            {
+               right = mid;
+            }
+            else
+            {
+               left = mid + 1;
+            }
+         }
+         System.arraycopy(sort, left, sort, left + 1, index - left);
+         sort[left] = temp;
+      }
+   }
+
+   // merges run "which" with run "which + 1" and collapses the run stack
+   private static <E> void mergeRuns(E[] sort, E[] temp, int[] runStart, int[] runLength, int which, Comparator<E> comparator)
+   {
+      int low = runStart[which];
+      int mid = low + runLength[which];
+      int high = mid + runLength[which + 1];
+      if (comparator.compare(sort[mid - 1], sort[mid]) > 0)
+      {
+         merge(sort, temp, low, mid, high, comparator);
+      }
+      runLength[which] = high - low;
+      for (int index = which + 1; index < runStart.length - 1; index++)
+      {
+         runStart[index] = runStart[index + 1];
+         runLength[index] = runLength[index + 1];
+      }
+   }
+
+   // stable merge of the sorted ranges sort[low, mid) and sort[mid, high)
+   private static <E> void merge(E[] sort, E[] temp, int low, int mid, int high, Comparator<E> comparator)
+   {
+      System.arraycopy(sort, low, temp, low, mid - low);
+      int left = low;
+      int right = mid;
+      int dest = low;
+      while (left < mid && right < high)
+      {
+         if (comparator.compare(sort[right], temp[left]) < 0)
+         {
+            sort[dest++] = sort[right++];
+         }
+         else
+         {
+            sort[dest++] = temp[left++];
+         }
+      }
+      while (left < mid)
+      {
+         sort[dest++] = temp[left++];
+      }
+   }
+   /**
+    * Sorts by primitive keys computed once up front: keys[i] is the key of sort[i].
+    * Indices are merge sorted by key (stable), so the comparator is only consulted
+    * to break ties between equal keys and may be null.
+    */
+   public static <E> void keySort(E[] sort, long[] keys, Comparator<E> tieBreaker)
+   {
+       if (sort != null && sort.length > 0)
+       {
+           keySort(sort, sort.length, keys, tieBreaker);
+       }
+   }
+
+   public static <E> void keySort(E[] sort, int n, long[] keys, Comparator<E> tieBreaker)
+   {
+      if (n > sort.length || n <= 0)
+      {
+         n = sort.length;
+      }
+
+      int[] order = new int[n];
+      for (int index = 0; index < n; index++)
+      {
+         order[index] = index;
+      }
+      keyMergeSort(order, new int[n], 0, n, sort, keys, tieBreaker);
+
+      E[] original = Arrays.copyOf(sort, n);
+      for (int index = 0; index < n; index++)
+      {
+         sort[index] = original[order[index]];
+      }
+   }
+
+   private static <E> void keyMergeSort(int[] order, int[] temp, int low, int high, E[] sort, long[] keys, Comparator<E> tieBreaker)
+   {
+      if (high - low < 2)
+      {
+         return;
+      }
+
+      int mid = (low + high) >>> 1;
+      keyMergeSort(order, temp, low, mid, sort, keys, tieBreaker);
+      keyMergeSort(order, temp, mid, high, sort, keys, tieBreaker);
+      if (compareKeys(order[mid - 1], order[mid], sort, keys, tieBreaker) <= 0)
+      {
+         return;
+      }
+
+      System.arraycopy(order, low, temp, low, mid - low);
+      int left = low;
+      int right = mid;
+      int dest = low;
+      while (left < mid && right < high)
+      {
+         if (compareKeys(order[right], temp[left], sort, keys, tieBreaker) < 0)
+         {
+            order[dest++] = order[right++];
+         }
+         else
+         {
+            order[dest++] = temp[left++];
+         }
+      }
+      while (left < mid)
+      {
+         order[dest++] = temp[left++];
+      }
+   }
+
+   private static <E> int compareKeys(int first, int second, E[] sort, long[] keys, Comparator<E> tieBreaker)
+   {
+      int result = Long.compare(keys[first], keys[second]);
+      if (result == 0 && tieBreaker != null)
+      {
+         result = tieBreaker.compare(sort[first], sort[second]);
+      }
+      return result;
+   }
+
+   /**
+    * Maps a double to a long whose signed order matches Double.compare.
+    */
+   public static long sortableKey(double value)
+   {
+      long bits = Double.doubleToLongBits(value);
+      return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+   }
+
+   /**
+    * Packs the first four chars of a String into a long whose signed order agrees
+    * with String.compareTo; Strings with equal keys still need a tie breaker.
+    */
+   public static long collationKey(String value)
+   {
+      long key = 0;
+      for (int index = 0; index < 4; index++)
+      {
+         key <<= 16;
+         if (index < value.length())
+         {
+            key |= value.charAt(index);
+         }
+      }
+      return key ^ Long.MIN_VALUE;
+   }
+   /**
+    * Returns the first k elements of items in comparator order, without sorting the rest.
+    * A heap holding the k best seen so far keeps this O(n log k).
+    */
+   public static <E> ArrayList<E> selectFirst(Collection<E> items, int k, Comparator<E> comparator)
+   {
+      return selectFirstAfter(items, null, k, comparator);
+   }
+
+   /**
+    * Same as selectFirst, but only elements that come after the given one in comparator order
+    * are considered (every element when after is null), so the k elements that follow a
+    * previous page can be picked without sorting.
+    */
+   public static <E> ArrayList<E> selectFirstAfter(Collection<E> items, E after, int k, Comparator<E> comparator)
+   {
+      ArrayList<E> result = new ArrayList<E>();
+      if (items == null || k <= 0)
+      {
+         return result;
+      }
+
+      // root of the heap is the worst element kept so far
+      Comparator<E> reversed = Collections.reverseOrder(comparator);
+      PriorityQueue<E> heap = new PriorityQueue<E>(Math.min(k, Math.max(items.size(), 1)), reversed);
+      for (E item : items)
+      {
+         if (after != null && comparator.compare(item, after) <= 0)
+         {
+            // already on an earlier page
+         }
+         else if (heap.size() < k)
+         {
+            heap.add(item);
+         }
+         else if (comparator.compare(item, heap.peek()) < 0)
+         {
+            heap.poll();
+            heap.add(item);
+         }
+      }
+
+      while (!heap.isEmpty())
+      {
+         result.add(heap.poll());
+      }
+      Collections.reverse(result);
+      return result;
+   }
 }
\ No newline at end of file